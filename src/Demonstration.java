@@ -68,7 +68,7 @@ public class Demonstration {
         manager.createNewTask(new Task("Task2_Name", "Task2_Description"));
 
         Epic epicWith3subs = manager.createNewEpic(new Epic("epicWith3subs", "Epic_Of_Three_Subtasks"));
-        int epicId = epicWith3subs.getId();
+        long epicId = epicWith3subs.getId();
 
         manager.createNewSubtask(new Subtask("Subtask1_Name", "Subtask1_OfEpic1",
                 LocalDateTime.of(2025, 1, 2, 9, 0), Duration.ofHours(1), epicId));
@@ -23,6 +23,8 @@ public class TaskDeserializer implements JsonDeserializer<Task> {
             return gson.fromJson(jsonObject, Subtask.class);
         } else if (jsonObject.has("subtasksId")) {
             return gson.fromJson(jsonObject, Epic.class);
+        } else if (jsonObject.has("repeatInterval")) {
+            return gson.fromJson(jsonObject, RecurringTask.class);
         } else {
             return gson.fromJson(jsonObject, Task.class);
         }
@@ -5,6 +5,8 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import exceptions.BadRequestException;
+import exceptions.DependencyCycleException;
 import exceptions.ManagerCreateTaskException;
 import exceptions.ManagerSaveException;
 import exceptions.TaskHasIntersectException;
@@ -17,10 +19,16 @@ import service.TaskManager;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 abstract class BaseHttpHandler implements HttpHandler {
     public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
@@ -50,10 +58,12 @@ abstract class BaseHttpHandler implements HttpHandler {
             }
         } catch (TaskNotFoundException exception) {
             sendNotFound(exchange);
-        } catch (TaskHasIntersectException | ManagerCreateTaskException exception) {
+        } catch (TaskHasIntersectException | ManagerCreateTaskException | DependencyCycleException exception) {
             sendNotAcceptable(exchange, exception.getMessage());
         } catch (JsonSyntaxException | IllegalStateException exception) {
             sendNotAcceptable(exchange, "Некорректное тело запроса");
+        } catch (BadRequestException exception) {
+            sendBadRequest(exchange, exception.getMessage());
         } catch (ManagerSaveException exception) {
             sendInternalServerError(exchange);
         }
@@ -73,6 +83,56 @@ abstract class BaseHttpHandler implements HttpHandler {
 
     public abstract String getAllowedMethods();
 
+    protected Map<String, String> getQueryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            String[] pair = parameter.split("=", 2);
+            String value = pair.length > 1 ? URLDecoder.decode(pair[1], DEFAULT_CHARSET) : "";
+            parameters.put(URLDecoder.decode(pair[0], DEFAULT_CHARSET), value);
+        }
+        return parameters;
+    }
+
+    protected String getRequiredParameter(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new BadRequestException("Не указан параметр " + name);
+        }
+        return value;
+    }
+
+    protected <T> T parseParameter(String name, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (DateTimeParseException | IllegalArgumentException exception) {
+            throw new BadRequestException("Некорректный параметр " + name + ": " + value, exception);
+        }
+    }
+
+    /**
+     * Calls the manager with the arguments taken from the request. The manager rejects invalid arguments,
+     * e.g. a period that ends before it starts or a recurring rule without an interval,
+     * with IllegalArgumentException, which is answered with 400.
+     */
+    protected <T> T callWithRequestArguments(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException(exception.getMessage(), exception);
+        }
+    }
+
+    protected void callWithRequestArguments(Runnable call) {
+        callWithRequestArguments(() -> {
+            call.run();
+            return null;
+        });
+    }
+
     public void sendNotAllowed(HttpExchange exchange) {
         try (exchange) {
             exchange.getResponseHeaders().add("Allow", getAllowedMethods());
@@ -109,6 +169,15 @@ abstract class BaseHttpHandler implements HttpHandler {
         }
     }
 
+    public void sendBadRequest(HttpExchange exchange, String text) {
+        try (exchange; OutputStream os = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(400, 0);
+            os.write(text.getBytes(DEFAULT_CHARSET));
+        } catch (IOException e) {
+            System.out.println("Ошибка отправки ответа от сервера");
+        }
+    }
+
     public void sendNotAcceptable(HttpExchange exchange, String text) {
         try (exchange; OutputStream os = exchange.getResponseBody()) {
             exchange.sendResponseHeaders(406, 0);
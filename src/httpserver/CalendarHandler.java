@@ -0,0 +1,40 @@
+package httpserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import model.Task;
+import service.TaskManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.regex.Pattern;
+
+public class CalendarHandler extends BaseHttpHandler {
+    public CalendarHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    // GET /calendar?from=2025-02-10&to=2025-02-16
+    @Override
+    protected void processGet(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        if (!Pattern.matches("^/calendar$", path)) {
+            sendNotFound(exchange);
+            return;
+        }
+        Map<String, String> parameters = getQueryParameters(exchange);
+        LocalDate from = parseParameter("from", getRequiredParameter(parameters, "from"), LocalDate::parse);
+        LocalDate to = parameters.containsKey("to")
+                ? parseParameter("to", parameters.get("to"), LocalDate::parse)
+                : from;
+        SortedMap<LocalDate, List<Task>> calendar =
+                callWithRequestArguments(() -> taskManager.getCalendar(from, to));
+        sendText(exchange, gson.toJson(calendar));
+    }
+
+    @Override
+    public String getAllowedMethods() {
+        return "GET";
+    }
+}
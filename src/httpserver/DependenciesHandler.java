@@ -0,0 +1,79 @@
+package httpserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import model.CriticalPath;
+import model.Dependency;
+import model.Task;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class DependenciesHandler extends BaseHttpHandler {
+    public DependenciesHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    protected void processGet(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        if (Pattern.matches("^/dependencies$", path)) {
+            List<Dependency> dependencies = taskManager.getDependencies();
+            sendText(exchange, gson.toJson(dependencies));
+        } else if (Pattern.matches("^/dependencies/order$", path)) {
+            List<Task> orderedTasks = taskManager.getTopologicalOrder();
+            sendText(exchange, gson.toJson(orderedTasks));
+        } else if (Pattern.matches("^/dependencies/critical$", path)) {
+            CriticalPath criticalPath = taskManager.getCriticalPath();
+            sendText(exchange, gson.toJson(criticalPath));
+        } else if (Pattern.matches("^/dependencies/\\d+$", path)) {
+            String pathId = path.replaceFirst("/dependencies/", "");
+            long id = Long.parseLong(pathId);
+            List<Task> blockers = taskManager.getBlockers(id);
+            sendText(exchange, gson.toJson(blockers));
+        } else {
+            sendNotFound(exchange);
+        }
+    }
+
+    // POST /dependencies {"blockerId": 1, "blockedId": 2}
+    @Override
+    protected void processPost(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!Pattern.matches("^/dependencies$", path)) {
+            sendNotFound(exchange);
+            return;
+        }
+        String body = new String(exchange.getRequestBody().readAllBytes(), DEFAULT_CHARSET);
+        Dependency dependency = gson.fromJson(body, Dependency.class);
+        if (dependency == null) {
+            throw new IllegalStateException("Пустое тело запроса");
+        }
+        taskManager.addDependency(dependency.getBlockerId(), dependency.getBlockedId());
+        System.out.println("Добавлена зависимость: " + dependency);
+        sendEmpty(exchange, 201);
+    }
+
+    // DELETE /dependencies?blockerId=1&blockedId=2
+    @Override
+    protected void processDelete(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        if (!Pattern.matches("^/dependencies$", path)) {
+            sendNotFound(exchange);
+            return;
+        }
+        Map<String, String> parameters = getQueryParameters(exchange);
+        long blockerId = parseParameter("blockerId", getRequiredParameter(parameters, "blockerId"), Long::parseLong);
+        long blockedId = parseParameter("blockedId", getRequiredParameter(parameters, "blockedId"), Long::parseLong);
+        taskManager.removeDependency(blockerId, blockedId);
+        sendEmpty(exchange, 200);
+        System.out.println("Удалена зависимость задачи id = " + blockedId + " от задачи id = " + blockerId);
+    }
+
+    @Override
+    public String getAllowedMethods() {
+        return "GET, POST, DELETE";
+    }
+}
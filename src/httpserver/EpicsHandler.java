@@ -22,7 +22,7 @@ public class EpicsHandler extends BaseHttpHandler {
         String path = exchange.getRequestURI().getPath();
         if (Pattern.matches("^/epics/\\d+.*$", path)) {
             String pathId = path.split("/")[2];
-            int id = Integer.parseInt(pathId);
+            long id = Long.parseLong(pathId);
             if (Pattern.matches("^/epics/\\d+/subtasks$", path)) {
                 List<Subtask> subtasks = taskManager.getSubtasksOfEpic(id);
                 sendText(exchange, gson.toJson(subtasks));
@@ -52,7 +52,7 @@ public class EpicsHandler extends BaseHttpHandler {
         JsonObject inputJson = JsonParser.parseString(body).getAsJsonObject();
         JsonElement inputId = inputJson.get("id");
         Epic epic = gson.fromJson(inputJson, Epic.class); // 5
-        if (inputId == null || inputId.getAsInt() == 0) {
+        if (inputId == null || inputId.getAsLong() == 0) {
             taskManager.createNewEpic(epic);
             System.out.println("Создан новый эпик: " + epic);
         } else {
@@ -70,7 +70,7 @@ public class EpicsHandler extends BaseHttpHandler {
             return;
         }
         String pathId = path.split("/")[2];
-        int id = Integer.parseInt(pathId);
+        long id = Long.parseLong(pathId);
         taskManager.removeEpic(id);
         sendEmpty(exchange, 200);
         System.out.println("Удалён эпик id = " + id);
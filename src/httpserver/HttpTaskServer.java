@@ -1,12 +1,15 @@
 package httpserver;
 
 import com.sun.net.httpserver.HttpServer;
+import service.FileBackedTaskManager;
 import service.Managers;
+import service.StorageOptions;
 import service.TaskManager;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.file.Paths;
+import java.util.concurrent.Executor;
 
 public class HttpTaskServer {
     public static final int PORT = 8080;
@@ -19,6 +22,14 @@ public class HttpTaskServer {
         server.createContext("/subtasks", new SubtasksHandler(manager));
         server.createContext("/history", new HistoryHandler(manager));
         server.createContext("/prioritized", new PrioritizedTasksHandler(manager));
+        server.createContext("/calendar", new CalendarHandler(manager));
+        server.createContext("/dependencies", new DependenciesHandler(manager));
+    }
+
+    // обработка запросов в пуле потоков, менеджер должен быть потокобезопасным, например ConcurrentTaskManager
+    public HttpTaskServer(TaskManager manager, Executor executor) throws IOException {
+        this(manager);
+        server.setExecutor(executor);
     }
 
     public HttpTaskServer() throws IOException {
@@ -40,7 +51,13 @@ public class HttpTaskServer {
     }
 
     public static void main(String[] args) {
-        TaskManager manager = Managers.getFileBackedTaskManager(Paths.get("res","tasks.csv"));
+        // история просмотров восстанавливается после перезапуска сервера
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(Paths.get("res","tasks.csv"),
+                StorageOptions.defaults().withPersistentHistory(true));
+        if (manager.isLoadedFromPreviousSnapshot()) {
+            System.out.println("Файл задач повреждён, загружен предыдущий снимок.");
+        }
+        System.out.println("Задачи загружены за " + manager.getLoadDuration().toMillis() + " мс.");
         try {
             HttpTaskServer server = new HttpTaskServer(manager);
             server.start();
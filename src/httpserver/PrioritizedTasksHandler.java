@@ -1,9 +1,16 @@
 package httpserver;
 
 import com.sun.net.httpserver.HttpExchange;
+import exceptions.BadRequestException;
 import model.Task;
+import model.TimeSlot;
 import service.TaskManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.regex.Pattern;
 
@@ -15,14 +22,50 @@ public class PrioritizedTasksHandler extends BaseHttpHandler {
     @Override
     protected void processGet(HttpExchange exchange) {
         String patch = exchange.getRequestURI().getPath();
+        if (Pattern.matches("^/prioritized/free$", patch)) {
+            sendFreeTimeSlots(exchange);
+            return;
+        }
         if (!Pattern.matches("^/prioritized$", patch)) {
             sendNotFound(exchange);
             return;
         }
-        SortedSet<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+        Map<String, String> parameters = getQueryParameters(exchange);
+        if (parameters.isEmpty()) {
+            SortedSet<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+            sendText(exchange, gson.toJson(prioritizedTasks));
+            return;
+        }
+        // GET /prioritized?from=2025-02-14T00:00&to=2025-02-15T00:00&limit=100
+        LocalDateTime from = parameters.containsKey("from")
+                ? parseParameter("from", parameters.get("from"), LocalDateTime::parse)
+                : null;
+        LocalDateTime to = parameters.containsKey("to")
+                ? parseParameter("to", parameters.get("to"), LocalDateTime::parse)
+                : null;
+        int limit = parseParameter("limit", parameters.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE)),
+                Integer::parseInt);
+        if (limit < 0) {
+            throw new BadRequestException("Параметр limit должен быть неотрицательным");
+        }
+        List<Task> prioritizedTasks =
+                callWithRequestArguments(() -> taskManager.getPrioritizedTasks(from, to, limit));
         sendText(exchange, gson.toJson(prioritizedTasks));
     }
 
+    // GET /prioritized/free?duration=PT1H&after=2025-02-14T10:00&count=3
+    private void sendFreeTimeSlots(HttpExchange exchange) {
+        Map<String, String> parameters = getQueryParameters(exchange);
+        Duration duration = parseParameter("duration", getRequiredParameter(parameters, "duration"), Duration::parse);
+        LocalDateTime after = parameters.containsKey("after")
+                ? parseParameter("after", parameters.get("after"), LocalDateTime::parse)
+                : LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        int count = parseParameter("count", parameters.getOrDefault("count", "1"), Integer::parseInt);
+        List<TimeSlot> freeTimeSlots =
+                callWithRequestArguments(() -> taskManager.getFreeTimeSlots(after, duration, count));
+        sendText(exchange, gson.toJson(freeTimeSlots));
+    }
+
     @Override
     public String getAllowedMethods() {
         return "GET";
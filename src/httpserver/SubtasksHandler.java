@@ -5,6 +5,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import model.Subtask;
+import model.TaskStatus;
 import service.TaskManager;
 
 import java.io.IOException;
@@ -21,11 +22,15 @@ public class SubtasksHandler extends BaseHttpHandler {
         String path = exchange.getRequestURI().getPath();
         if (Pattern.matches("^/subtasks/\\d+$", path)) {
             String pathId = path.replaceFirst("/subtasks/", "");
-            int id = Integer.parseInt(pathId);
+            long id = Long.parseLong(pathId);
             Subtask subtask = taskManager.getSubtask(id);
             sendText(exchange, gson.toJson(subtask));
         } else if (Pattern.matches("^/subtasks$", path)) {
-            List<Subtask> subtasks = taskManager.getAllSubtasks();
+            // GET /subtasks?status=IN_PROGRESS
+            String status = getQueryParameters(exchange).get("status");
+            List<Subtask> subtasks = status == null
+                    ? taskManager.getAllSubtasks()
+                    : taskManager.getSubtasksByStatus(parseParameter("status", status, TaskStatus::valueOf));
             sendText(exchange, gson.toJson(subtasks));
         } else {
             sendNotFound(exchange);
@@ -43,11 +48,11 @@ public class SubtasksHandler extends BaseHttpHandler {
         JsonObject inputJson = JsonParser.parseString(body).getAsJsonObject();
         JsonElement inputId = inputJson.get("id");
         Subtask subtask = gson.fromJson(inputJson, Subtask.class);
-        if (inputId == null || inputId.getAsInt() == 0) {
-            taskManager.createNewSubtask(subtask);
+        if (inputId == null || inputId.getAsLong() == 0) {
+            callWithRequestArguments(() -> taskManager.createNewSubtask(subtask));
             System.out.println("Создана новая подзадача: " + subtask);
         } else {
-            taskManager.updateSubtask(subtask);
+            callWithRequestArguments(() -> taskManager.updateSubtask(subtask));
             System.out.println("Обновлена подзадача: " + subtask);
         }
         sendEmpty(exchange, 201);
@@ -61,7 +66,7 @@ public class SubtasksHandler extends BaseHttpHandler {
             return;
         }
         String pathId = path.replaceFirst("/subtasks/", "");
-        int id = Integer.parseInt(pathId);
+        long id = Long.parseLong(pathId);
         taskManager.removeSubtask(id);
         System.out.println("Удалена подзадача id = " + id);
         sendEmpty(exchange, 200);
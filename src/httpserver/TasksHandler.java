@@ -5,6 +5,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import model.Task;
+import model.TaskStatus;
 import service.TaskManager;
 
 import java.io.IOException;
@@ -22,11 +23,15 @@ public class TasksHandler extends BaseHttpHandler {
         String path = exchange.getRequestURI().getPath();
         if (Pattern.matches("^/tasks/\\d+$", path)) {
             String pathId = path.replaceFirst("/tasks/", "");
-            int id = Integer.parseInt(pathId);
+            long id = Long.parseLong(pathId);
             Task task = taskManager.getTask(id);
             sendText(exchange, gson.toJson(task));
         } else if (Pattern.matches("^/tasks$", path)) {
-            List<Task> tasks = taskManager.getAllTasks();
+            // GET /tasks?status=IN_PROGRESS
+            String status = getQueryParameters(exchange).get("status");
+            List<Task> tasks = status == null
+                    ? taskManager.getAllTasks()
+                    : taskManager.getTasksByStatus(parseParameter("status", status, TaskStatus::valueOf));
             sendText(exchange, gson.toJson(tasks));
         } else {
             sendNotFound(exchange); // +
@@ -44,11 +49,11 @@ public class TasksHandler extends BaseHttpHandler {
         JsonObject inputJson = JsonParser.parseString(body).getAsJsonObject();
         JsonElement inputId = inputJson.get("id");
         Task task = gson.fromJson(inputJson, Task.class);
-        if (inputId == null || inputId.getAsInt() == 0) {
-            taskManager.createNewTask(task);
+        if (inputId == null || inputId.getAsLong() == 0) {
+            callWithRequestArguments(() -> taskManager.createNewTask(task));
             System.out.println("Создана новая задача: " +  task);
         } else {
-            taskManager.updateTask(task);
+            callWithRequestArguments(() -> taskManager.updateTask(task));
             System.out.println("Обновлена задача: " + task);
         }
         sendEmpty(exchange, 201);
@@ -62,7 +67,7 @@ public class TasksHandler extends BaseHttpHandler {
             return;
         }
         String pathId = path.replaceFirst("/tasks/", "");
-        int id = Integer.parseInt(pathId);
+        long id = Long.parseLong(pathId);
         taskManager.removeTask(id);
         sendEmpty(exchange, 200);
         System.out.println("Удалена задача id = " + id);
@@ -0,0 +1,51 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * The longest chain of dependent tasks that defines the earliest end of all linked tasks.
+ * Start and end are null when no task of the graph has a start time,
+ * then only the duration of the chain is known.
+ */
+public class CriticalPath {
+    private final List<Task> tasks;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final Duration duration;
+
+    public CriticalPath(List<Task> tasks, LocalDateTime start, LocalDateTime end, Duration duration) {
+        this.tasks = List.copyOf(tasks);
+        this.start = start;
+        this.end = end;
+        this.duration = duration;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "CriticalPath{", "}");
+        joiner.add("tasks.count=" + tasks.size());
+        joiner.add("start=" + start);
+        joiner.add("end=" + end);
+        joiner.add("duration=" + duration);
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Dependency link between tasks: the blocked task can start only after the blocker task ends.
+ */
+public class Dependency {
+    private final long blockerId;
+    private final long blockedId;
+
+    public Dependency(long blockerId, long blockedId) {
+        this.blockerId = blockerId;
+        this.blockedId = blockedId;
+    }
+
+    public long getBlockerId() {
+        return blockerId;
+    }
+
+    public long getBlockedId() {
+        return blockedId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Dependency that = (Dependency) o;
+        return blockerId == that.blockerId && blockedId == that.blockedId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(blockerId, blockedId);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "Dependency{", "}");
+        joiner.add("blockerId=" + blockerId);
+        joiner.add("blockedId=" + blockedId);
+        return joiner.toString();
+    }
+}
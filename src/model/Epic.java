@@ -2,13 +2,24 @@ package model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
+import java.util.TreeMap;
 
 public class Epic extends Task {
-    private final List<Integer> subtasksId;
+    // LinkedHashSet: порядок добавления и удаление подзадачи за O(1)
+    private final LinkedHashSet<Long> subtasksId;
     private LocalDateTime endTime;
+    // статус каждой подзадачи на момент добавления в эпик и количество подзадач в каждом статусе
+    private final transient Map<Long, TaskStatus> subtasksStatus = new HashMap<>();
+    private final transient int[] statusCounters = new int[TaskStatus.values().length];
+    // упорядоченные времена начала и окончания подзадач с количеством подзадач на каждое время
+    private final transient TreeMap<LocalDateTime, Integer> subtasksStartTimes = new TreeMap<>();
+    private final transient TreeMap<LocalDateTime, Integer> subtasksEndTimes = new TreeMap<>();
 
     public Epic() {
         this("","");
@@ -16,24 +27,69 @@ public class Epic extends Task {
 
     public Epic(String name, String description) {
         super(name, description);
-        subtasksId = new ArrayList<>();
+        subtasksId = new LinkedHashSet<>();
+    }
+
+    /**
+     * Creates a copy of the epic with its own list of subtasks, later changes of {@code other} do not affect it.
+     */
+    public Epic(Epic other) {
+        super(other.name, other.description, other.startTime, other.duration);
+        id = other.id;
+        status = other.status;
+        endTime = other.endTime;
+        subtasksId = new LinkedHashSet<>(other.subtasksId);
+        subtasksStatus.putAll(other.subtasksStatus);
+        System.arraycopy(other.statusCounters, 0, statusCounters, 0, statusCounters.length);
+        subtasksStartTimes.putAll(other.subtasksStartTimes);
+        subtasksEndTimes.putAll(other.subtasksEndTimes);
     }
 
     public void addSubtask(Subtask subtask) {
         subtask.setEpicId(this.id);
         subtasksId.add(subtask.getId());
+        countStatus(subtask);
         updateTime(subtask);
     }
 
     public void removeSubtask(Subtask subtask) {
-        if (!subtasksId.contains(subtask.getId())) {
+        if (!subtasksId.remove(subtask.getId())) {
             throw new IllegalArgumentException("Сабтаска с id = " + subtask.getId() + " не содержится в эпике");
         }
-        subtasksId.remove(Integer.valueOf(subtask.getId())); // обертка Integer для удаления по содержимому, а не по индексу
+        uncountStatus(subtask.getId());
+        updateStatus();
         removeTime(subtask);
     }
 
-    public List<Integer> getSubtasksId() {
+    /**
+     * Replaces the subtask with its updated version, keeping its position in the epic.
+     * The epic status is recalculated in O(1).
+     */
+    public void replaceSubtask(Subtask oldSubtask, Subtask updatedSubtask) {
+        if (oldSubtask.getId() != updatedSubtask.getId() || !subtasksStatus.containsKey(oldSubtask.getId())) {
+            throw new IllegalArgumentException("Сабтаска с id = " + oldSubtask.getId() + " не содержится в эпике");
+        }
+        updatedSubtask.setEpicId(this.id);
+        countStatus(updatedSubtask);
+        removeTime(oldSubtask);
+        updateTime(updatedSubtask);
+    }
+
+    /**
+     * Removes all subtasks from the epic at once and resets its status and time.
+     */
+    public void clearSubtasks() {
+        subtasksId.clear();
+        subtasksStatus.clear();
+        Arrays.fill(statusCounters, 0);
+        subtasksStartTimes.clear();
+        subtasksEndTimes.clear();
+        duration = null;
+        refreshTimeBounds();
+        updateStatus();
+    }
+
+    public List<Long> getSubtasksId() {
         return List.copyOf(subtasksId);
     }
 
@@ -60,23 +116,46 @@ public class Epic extends Task {
         return endTime;
     }
 
-    private void updateTime(Subtask subtask) {
-        LocalDateTime newTaskStartTime = subtask.getStartTime();
-        Duration newTaskDuration = subtask.getDuration();
-        LocalDateTime newTaskEndTime = subtask.getEndTime();
-        if (startTime == null || (newTaskStartTime != null && startTime.isAfter(newTaskStartTime))) {
-            startTime = newTaskStartTime;
+    private void countStatus(Subtask subtask) {
+        uncountStatus(subtask.getId());
+        subtasksStatus.put(subtask.getId(), subtask.getStatus());
+        statusCounters[subtask.getStatus().ordinal()]++;
+        updateStatus();
+    }
+
+    private void uncountStatus(long subtaskId) {
+        TaskStatus oldStatus = subtasksStatus.remove(subtaskId);
+        if (oldStatus != null) {
+            statusCounters[oldStatus.ordinal()]--;
         }
+    }
 
+    private void updateStatus() {
+        int subtasksCount = subtasksStatus.size();
+        if (subtasksCount == 0 || statusCounters[TaskStatus.NEW.ordinal()] == subtasksCount) {
+            status = TaskStatus.NEW;
+        } else if (statusCounters[TaskStatus.DONE.ordinal()] == subtasksCount) {
+            status = TaskStatus.DONE;
+        } else {
+            status = TaskStatus.IN_PROGRESS;
+        }
+    }
+
+    /**
+     * Adds the subtask time to the epic in O(log k), where k is the number of subtasks.
+     * The epic starts at the earliest start and ends at the latest end of its subtasks,
+     * the duration is the sum of the subtask durations.
+     */
+    private void updateTime(Subtask subtask) {
+        Duration newTaskDuration = subtask.getDuration();
         if (duration == null) {
             duration = newTaskDuration;
         } else if (newTaskDuration != null) {
             duration = duration.plus(newTaskDuration);
         }
-
-        if (endTime == null || (newTaskEndTime != null && newTaskEndTime.isAfter(endTime))) {
-            endTime = newTaskEndTime;
-        }
+        increment(subtasksStartTimes, subtask.getStartTime());
+        increment(subtasksEndTimes, subtask.getEndTime());
+        refreshTimeBounds();
     }
 
     private void removeTime(Subtask oldSubtask) {
@@ -86,11 +165,25 @@ public class Epic extends Task {
                 duration = null;
             }
         }
-        if (startTime != null && oldSubtask.getStartTime() != null && startTime.isEqual(oldSubtask.getStartTime())) {
-            startTime = null;
+        decrement(subtasksStartTimes, oldSubtask.getStartTime());
+        decrement(subtasksEndTimes, oldSubtask.getEndTime());
+        refreshTimeBounds();
+    }
+
+    private void refreshTimeBounds() {
+        startTime = subtasksStartTimes.isEmpty() ? null : subtasksStartTimes.firstKey();
+        endTime = subtasksEndTimes.isEmpty() ? null : subtasksEndTimes.lastKey();
+    }
+
+    private static void increment(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.merge(time, 1, Integer::sum);
         }
-        if (endTime != null && oldSubtask.getEndTime() != null && endTime.isEqual(oldSubtask.getEndTime())) {
-            endTime = null;
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.computeIfPresent(time, (key, count) -> count > 1 ? count - 1 : null);
         }
     }
 }
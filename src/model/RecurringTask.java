@@ -0,0 +1,182 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * Task that repeats every {@code repeatInterval} from its start time up to {@code repeatUntil} inclusive,
+ * or forever if {@code repeatUntil} is null. Occurrences are not stored, they are computed
+ * from the rule only for the requested period.
+ */
+public class RecurringTask extends Task {
+    private Duration repeatInterval;
+    private LocalDateTime repeatUntil;
+
+    public RecurringTask(String name, String description, LocalDateTime startTime, Duration duration,
+                         Duration repeatInterval) {
+        this(name, description, startTime, duration, repeatInterval, null);
+    }
+
+    public RecurringTask(String name, String description, LocalDateTime startTime, Duration duration,
+                         Duration repeatInterval, LocalDateTime repeatUntil) {
+        super(name, description, startTime, duration);
+        this.repeatInterval = repeatInterval;
+        this.repeatUntil = repeatUntil;
+        checkRule(startTime, duration, repeatInterval, repeatUntil);
+    }
+
+    public Duration getRepeatInterval() {
+        return repeatInterval;
+    }
+
+    public LocalDateTime getRepeatUntil() {
+        return repeatUntil;
+    }
+
+    public boolean isUnbounded() {
+        return repeatUntil == null;
+    }
+
+    /**
+     * Checks the rule, the task may come from JSON bypassing the constructor.
+     * Occurrences must not overlap each other, so the interval is not shorter than the duration.
+     */
+    public final void validateRule() {
+        checkRule(startTime, duration, repeatInterval, repeatUntil);
+    }
+
+    // повторения вычисляются в целых секундах, интервал и длительность меньше секунды дали бы деление на ноль
+    private static void checkRule(LocalDateTime startTime, Duration duration, Duration repeatInterval,
+                                  LocalDateTime repeatUntil) {
+        if (startTime == null || duration == null || repeatInterval == null) {
+            throw new IllegalArgumentException("Для повторяющейся задачи нужно указать startTime, duration "
+                    + "и repeatInterval");
+        }
+        if (duration.getSeconds() <= 0 || repeatInterval.getSeconds() <= 0) {
+            throw new IllegalArgumentException("Длительность и интервал повторения должны быть не меньше секунды: "
+                    + duration + ", " + repeatInterval);
+        }
+        if (repeatInterval.compareTo(duration) < 0) {
+            throw new IllegalArgumentException("Интервал повторения меньше длительности задачи: " + repeatInterval);
+        }
+        if (repeatUntil != null && repeatUntil.isBefore(startTime)) {
+            throw new IllegalArgumentException("Окончание повторений раньше начала задачи: " + repeatUntil);
+        }
+    }
+
+    public LocalDateTime getOccurrenceStart(long index) {
+        return startTime.plusSeconds(index * repeatInterval.getSeconds());
+    }
+
+    public boolean hasOccurrence(long index) {
+        return index >= 0 && (repeatUntil == null || !getOccurrenceStart(index).isAfter(repeatUntil));
+    }
+
+    /**
+     * Returns the occurrence as a separate task with the id, name, description and status of the rule.
+     */
+    public Task getOccurrence(long index) {
+        Task occurrence = new Task(name, description, getOccurrenceStart(index), duration);
+        occurrence.setId(id);
+        occurrence.setStatus(status);
+        return occurrence;
+    }
+
+    /**
+     * Returns the index of the last occurrence, -1 for an unbounded rule.
+     */
+    public long getLastIndex() {
+        if (repeatUntil == null) {
+            return -1;
+        }
+        return Duration.between(startTime, repeatUntil).getSeconds() / repeatInterval.getSeconds();
+    }
+
+    /**
+     * Lazily generates occurrences, that end after {@code time}, in the order of their start time.
+     */
+    public Stream<Task> occurrencesEndingAfter(LocalDateTime time) {
+        long first = Math.max(0, Math.floorDiv(secondsFromStart(time) - duration.getSeconds(),
+                repeatInterval.getSeconds()) + 1);
+        return Stream.iterate(first, this::hasOccurrence, index -> index + 1)
+                .map(this::getOccurrence);
+    }
+
+    /**
+     * Lazily generates occurrences with the start time in [from, to), a null bound means no limit on that side.
+     */
+    public Stream<Task> occurrencesBetween(LocalDateTime from, LocalDateTime to) {
+        long first = from == null ? 0 : Math.max(0, ceilDiv(secondsFromStart(from), repeatInterval.getSeconds()));
+        return Stream.iterate(first, index -> hasOccurrence(index)
+                        && (to == null || getOccurrenceStart(index).isBefore(to)), index -> index + 1)
+                .map(this::getOccurrence);
+    }
+
+    /**
+     * Checks the overlap with any occurrence in O(1) for a one-off task.
+     * Two unbounded rules are checked in O(1) too, otherwise occurrences of the bounded rule are enumerated.
+     */
+    @Override
+    public boolean isIntersect(Task other) {
+        if (other.getStartTime() == null) {
+            return false;
+        }
+        if (other instanceof RecurringTask otherRule) {
+            return isIntersectRule(otherRule);
+        }
+        long offset = secondsFromStart(other.getStartTime());
+        long interval = repeatInterval.getSeconds();
+        if (other.getDuration() == null) {
+            // задача без длительности пересекается только с повторением, которое начинается в то же время
+            return Math.floorMod(offset, interval) == 0 && hasOccurrence(offset / interval);
+        }
+        // первое повторение, которое заканчивается позже начала другой задачи
+        long index = Math.max(0, Math.floorDiv(offset - duration.getSeconds(), interval) + 1);
+        return hasOccurrence(index) && getOccurrenceStart(index).isBefore(other.getEndTime());
+    }
+
+    private boolean isIntersectRule(RecurringTask other) {
+        if (isUnbounded() && other.isUnbounded()) {
+            // разности начал повторений пробегают все числа вида offset + k * gcd(интервалов),
+            // пересечение есть, если одно из них попадает в (-other.duration, duration)
+            long gcd = gcd(repeatInterval.getSeconds(), other.repeatInterval.getSeconds());
+            long offset = secondsFromStart(other.getStartTime());
+            long lower = -other.duration.getSeconds();
+            long remainder = Math.floorMod(offset - lower, gcd);
+            long nearest = lower + (remainder == 0 ? gcd : remainder);
+            return nearest < duration.getSeconds();
+        }
+        RecurringTask bounded = isUnbounded() || (!other.isUnbounded() && other.getLastIndex() < getLastIndex())
+                ? other : this;
+        RecurringTask checked = bounded == this ? other : this;
+        return bounded.occurrencesBetween(null, null).anyMatch(checked::isIntersect);
+    }
+
+    private long secondsFromStart(LocalDateTime time) {
+        return Duration.between(startTime, time).getSeconds();
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "RecurringTask{", "}");
+        joiner.add("id=" + id);
+        joiner.add("status='" + status + "'");
+        joiner.add("name='" + name + "'");
+        joiner.add("description.length=" + description.length());
+        joiner.add("startTime=" + startTime);
+        joiner.add("duration=" + duration);
+        joiner.add("repeatInterval=" + repeatInterval);
+        joiner.add("repeatUntil=" + repeatUntil);
+        return joiner.toString();
+    }
+}
@@ -5,7 +5,7 @@ import java.time.LocalDateTime;
 import java.util.StringJoiner;
 
 public class Subtask extends Task {
-    private int epicId;
+    private long epicId;
 
     public Subtask() {
         this("","", null, null);
@@ -15,7 +15,7 @@ public class Subtask extends Task {
         this(name, description, null, null);
     }
 
-    public Subtask(String name, String description, int epicId) {
+    public Subtask(String name, String description, long epicId) {
         this(name, description, null, null, epicId);
     }
 
@@ -24,16 +24,16 @@ public class Subtask extends Task {
         epicId = -1;
     }
 
-    public Subtask(String name, String description, LocalDateTime startTime, Duration duration, int epicId) {
+    public Subtask(String name, String description, LocalDateTime startTime, Duration duration, long epicId) {
         super(name, description, startTime, duration);
         this.epicId = epicId;
     }
 
-    public int getEpicId() {
+    public long getEpicId() {
         return epicId;
     }
 
-    public void setEpicId(int epicId) {
+    public void setEpicId(long epicId) {
         this.epicId = epicId;
     }
 
@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 import java.time.Duration;
 
 public class Task {
-    protected int id;
+    protected long id;
     protected TaskStatus status;
     protected String name;
     protected String description;
@@ -47,11 +47,11 @@ public class Task {
         return endTime;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
-    public void setId(int id) {
+    public void setId(long id) {
         this.id = id;
     }
 
@@ -116,6 +116,9 @@ public class Task {
         if (this.getStartTime() == null || other.getStartTime() == null) {
             return false;
         }
+        if (other instanceof RecurringTask) {
+            return other.isIntersect(this);
+        }
         if (this.getStartTime().isEqual(other.getStartTime())) {
             return true;
         }
@@ -0,0 +1,26 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free id generator over a single {@link AtomicLong}, ids start from 1.
+ * It can also hand out id ranges to several managers through {@link BlockIdGenerator}.
+ */
+public class AtomicIdGenerator implements IdGenerator, IdBlockSource {
+    private final AtomicLong lastId = new AtomicLong();
+
+    @Override
+    public long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public long reserveBlock(int size) {
+        return lastId.getAndAdd(size) + 1;
+    }
+
+    @Override
+    public void skipTo(long usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+}
@@ -0,0 +1,218 @@
+package service;
+
+import exceptions.ManagerLoadFileException;
+import exceptions.ManagerParseTaskException;
+import model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of {@link FileBackedTaskManager}. The file starts with the magic number and the CRC32
+ * of the rest of the file, followed by the number of records, the number of the last journal record
+ * and the records. Numbers have a fixed width, strings are UTF-8 bytes prefixed by their length,
+ * so the records are read from the mapped file without splitting lines and parsing text.
+ * <p>
+ * A record starts with its kind. Tasks are "id, status, name, description, startTime, duration",
+ * a subtask adds the epic id, a recurring task adds the repeat interval and the repeat end,
+ * an epic has no time fields, a dependency is "blockerId, blockedId".
+ */
+final class BinarySnapshot {
+    // "KBN1", первый байт CSV-файла - буква заголовка или пустой файл, поэтому форматы не путаются
+    private static final int MAGIC = 0x4B424E31;
+    private static final int HEADER_SIZE = 8;
+    private static final byte TASK = 0;
+    private static final byte EPIC = 1;
+    private static final byte SUBTASK = 2;
+    private static final byte RECURRING = 3;
+    private static final byte DEPENDENCY = 4;
+    // отсутствующие значения: строка с длиной -1, время и длительность Long.MIN_VALUE
+    private static final int NULL_LENGTH = -1;
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinarySnapshot() {
+    }
+
+    static ByteBuffer encode(Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks,
+                             Collection<Dependency> dependencies, long lastSeq) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(0); // контрольная сумма записывается после записей
+            out.writeInt(tasks.size() + epics.size() + subtasks.size() + dependencies.size());
+            out.writeLong(lastSeq);
+            for (Task task : tasks) {
+                if (task instanceof RecurringTask rule) {
+                    writeTask(out, RECURRING, rule);
+                    out.writeLong(rule.getRepeatInterval().getSeconds());
+                    out.writeLong(toEpochSecond(rule.getRepeatUntil()));
+                } else {
+                    writeTask(out, TASK, task);
+                }
+            }
+            for (Epic epic : epics) {
+                writeHead(out, EPIC, epic);
+            }
+            for (Subtask subtask : subtasks) {
+                writeTask(out, SUBTASK, subtask);
+                out.writeLong(subtask.getEpicId());
+            }
+            for (Dependency dependency : dependencies) {
+                out.writeByte(DEPENDENCY);
+                out.writeLong(dependency.getBlockerId());
+                out.writeLong(dependency.getBlockedId());
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // запись в память не бросает IOException
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.slice(HEADER_SIZE, buffer.limit() - HEADER_SIZE));
+        buffer.putInt(4, (int) crc32.getValue());
+        return buffer;
+    }
+
+    static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            while (magic.hasRemaining()) {
+                if (channel.read(magic) < 0) {
+                    return false;
+                }
+            }
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    static boolean isBinary(byte[] bytes) {
+        return bytes.length >= Integer.BYTES && ByteBuffer.wrap(bytes).getInt(0) == MAGIC;
+    }
+
+    /**
+     * Checks the checksum and passes the records to the handler.
+     * @return the number of the last journal record contained in the snapshot
+     * @throws ManagerLoadFileException if the file does not match its checksum or number of records
+     */
+    static long read(Path path, SnapshotHandler handler) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // отображение остаётся действительным после закрытия канала
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return read(buffer, path, handler);
+    }
+
+    /**
+     * Same as {@link #read(Path, SnapshotHandler)} for the content of the file already in memory,
+     * e.g. unpacked from a compressed file.
+     */
+    static long read(ByteBuffer buffer, Path path, SnapshotHandler handler) {
+        if (buffer.limit() < HEADER_SIZE + Integer.BYTES + Long.BYTES) {
+            throw new ManagerLoadFileException("Файл " + path.getFileName() + " повреждён: нет заголовка", null);
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.slice(HEADER_SIZE, buffer.limit() - HEADER_SIZE));
+        if (buffer.getInt(4) != (int) crc32.getValue()) {
+            throw new ManagerLoadFileException("Файл " + path.getFileName() + " повреждён: не совпадает контрольная сумма",
+                    null);
+        }
+        buffer.position(HEADER_SIZE);
+        int records = buffer.getInt();
+        long lastSeq = buffer.getLong();
+        byte[] chars = new byte[256];
+        for (int i = 0; i < records; i++) {
+            Task task;
+            try {
+                byte kind = buffer.get();
+                if (kind == DEPENDENCY) {
+                    handler.restoreDependency(buffer.getLong(), buffer.getLong());
+                    continue;
+                }
+                long id = buffer.getLong();
+                TaskStatus status = STATUSES[buffer.get()];
+                String name = readString(buffer, chars);
+                String description = readString(buffer, chars);
+                task = kind == EPIC ? new Epic(name, description) : readTimedTask(buffer, kind, name, description);
+                task.setId(id);
+                task.setStatus(status);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+                throw new ManagerParseTaskException("Неверная запись " + i + " в файле " + path.getFileName(), ex);
+            }
+            handler.restoreTask(task);
+        }
+        if (buffer.hasRemaining()) {
+            throw new ManagerLoadFileException("Файл " + path.getFileName() + " повреждён: данные после записей", null);
+        }
+        return lastSeq;
+    }
+
+    private static Task readTimedTask(ByteBuffer buffer, byte kind, String name, String description) {
+        LocalDateTime startTime = fromEpochSecond(buffer.getLong());
+        long durationSeconds = buffer.getLong();
+        Duration duration = durationSeconds != NULL_VALUE ? Duration.ofSeconds(durationSeconds) : null;
+        return switch (kind) {
+            case TASK -> new Task(name, description, startTime, duration);
+            case SUBTASK -> new Subtask(name, description, startTime, duration, buffer.getLong());
+            case RECURRING -> new RecurringTask(name, description, startTime, duration,
+                    Duration.ofSeconds(buffer.getLong()), fromEpochSecond(buffer.getLong()));
+            default -> throw new IllegalArgumentException("Неизвестный вид записи: " + kind);
+        };
+    }
+
+    private static void writeHead(DataOutputStream out, byte kind, Task task) throws IOException {
+        out.writeByte(kind);
+        out.writeLong(task.getId());
+        out.writeByte(task.getStatus().ordinal());
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+    }
+
+    private static void writeTask(DataOutputStream out, byte kind, Task task) throws IOException {
+        writeHead(out, kind, task);
+        out.writeLong(toEpochSecond(task.getStartTime()));
+        out.writeLong(task.getDuration() != null ? task.getDuration().getSeconds() : NULL_VALUE);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] chars) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        // длинные строки читаются из отдельного массива, общий массив не растёт
+        byte[] target = length <= chars.length ? chars : new byte[length];
+        buffer.get(target, 0, length);
+        return new String(target, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time != null ? time.toEpochSecond(ZoneOffset.UTC) : NULL_VALUE;
+    }
+
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+        return epochSecond != NULL_VALUE ? LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,40 @@
+package service;
+
+/**
+ * Id generator that takes ids from a shared {@link IdBlockSource} by blocks and hands them out locally.
+ * Managers with their own generators over one source never get the same id,
+ * and the source is accessed once per block instead of once per task.
+ * Ids of a block that were not handed out are skipped.
+ */
+public class BlockIdGenerator implements IdGenerator {
+    private final IdBlockSource source;
+    private final int blockSize;
+    private long nextId;
+    private long blockEnd;
+
+    public BlockIdGenerator(IdBlockSource source, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер блока id должен быть положительным: " + blockSize);
+        }
+        this.source = source;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public synchronized long nextId() {
+        if (nextId == blockEnd) {
+            nextId = source.reserveBlock(blockSize);
+            blockEnd = nextId + blockSize;
+        }
+        return nextId++;
+    }
+
+    @Override
+    public synchronized void skipTo(long usedId) {
+        source.skipTo(usedId);
+        // текущий блок мог содержать занятый id, берём следующий блок после него
+        if (usedId >= nextId) {
+            nextId = blockEnd;
+        }
+    }
+}
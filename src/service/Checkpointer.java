@@ -0,0 +1,103 @@
+package service;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Background thread of {@link FileBackedTaskManager}, that runs the checkpoint every interval
+ * and when it is requested, e.g. when the journal grows over the size threshold.
+ * Requests that come while a checkpoint runs are merged into the next one.
+ */
+final class Checkpointer implements AutoCloseable {
+    private final Runnable checkpoint;
+    // 0 - контрольная точка выполняется только по запросу
+    private final long intervalNanos;
+    private final Thread thread;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private boolean requested;
+    private boolean closed;
+    // ошибка последней контрольной точки, сбрасывается следующей удачной
+    private volatile RuntimeException failure;
+
+    Checkpointer(String name, Duration interval, Runnable checkpoint) {
+        this.checkpoint = checkpoint;
+        intervalNanos = interval != null ? interval.toNanos() : 0;
+        thread = new Thread(this::run, "checkpointer-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void request() {
+        lock.lock();
+        try {
+            requested = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the exception of the last checkpoint, or null if it succeeded or there was none.
+     */
+    RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Waits for the running checkpoint and stops the thread.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long nextRunNanos = System.nanoTime() + intervalNanos;
+        while (true) {
+            lock.lock();
+            try {
+                while (!requested && !closed) {
+                    if (intervalNanos == 0) {
+                        changed.await();
+                        continue;
+                    }
+                    long untilRun = nextRunNanos - System.nanoTime();
+                    if (untilRun <= 0) {
+                        break;
+                    }
+                    changed.awaitNanos(untilRun);
+                }
+                if (closed) {
+                    return;
+                }
+                requested = false;
+            } catch (InterruptedException ex) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            // ошибка записи не останавливает поток, изменения остаются в журнале до следующей попытки
+            try {
+                checkpoint.run();
+                failure = null;
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+            nextRunNanos = System.nanoTime() + intervalNanos;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package service;
+
+import model.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe task manager for a multithreaded HTTP server.
+ * Reads take the shared lock and never block each other, writes take the exclusive lock,
+ * so the overlap check and the insert into the prioritized set are atomic.
+ * The history is guarded by its own monitor, as reading a task also updates the history.
+ * Epics are returned as copies taken under the lock: a subtask write changes its stored epic,
+ * and the epic may be read or serialized by the caller after the lock is released.
+ * A copy is taken once and returned until a write changes its epic, so a subtask write copies only its epics.
+ * <p>
+ * In the snapshot mode every write publishes immutable lists of tasks, epics and subtasks,
+ * and getAllTasks, getAllEpics, getAllSubtasks return the current snapshot
+ * with a single volatile read, without locking and copying.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private final ReadWriteLock lock;
+    private final boolean snapshotReads;
+    private volatile Snapshot snapshot;
+    // копии эпиков для чтения, запись удаляет копии изменённых эпиков, чтение создаёт недостающие
+    private final Map<Long, Epic> epicCopies = new ConcurrentHashMap<>();
+
+    public ConcurrentTaskManager() {
+        this(false);
+    }
+
+    public ConcurrentTaskManager(boolean snapshotReads) {
+        super(new SynchronizedHistoryManager(Managers.getDefaultHistory()), new AtomicIdGenerator());
+        lock = new ReentrantReadWriteLock();
+        this.snapshotReads = snapshotReads;
+        snapshot = new Snapshot(0, List.of(), List.of(), List.of());
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return snapshotReads ? snapshot.tasks() : read(super::getAllTasks);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return snapshotReads ? snapshot.epics() : read(() -> copyEpics(super.getAllEpics()));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return snapshotReads ? snapshot.subtasks() : read(super::getAllSubtasks);
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return read(() -> super.getTasksByStatus(status));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return read(() -> super.getSubtasksByStatus(status));
+    }
+
+    /**
+     * Returns the number of the snapshot published by the last write, 0 if nothing was written.
+     * Works only in the snapshot mode.
+     */
+    public long getSnapshotVersion() {
+        return snapshot.version();
+    }
+
+    @Override
+    public void clearAllTasks() {
+        write(super::clearAllTasks, TaskType.TASK);
+    }
+
+    @Override
+    public void clearAllEpics() {
+        write(() -> {
+            epicCopies.clear();
+            super.clearAllEpics();
+        }, TaskType.EPIC, TaskType.SUBTASK);
+    }
+
+    @Override
+    public void clearAllSubtasks() {
+        write(() -> {
+            epicCopies.clear();
+            super.clearAllSubtasks();
+        }, TaskType.SUBTASK);
+    }
+
+    @Override
+    public Task getTask(long id) {
+        return read(() -> super.getTask(id));
+    }
+
+    @Override
+    public Epic getEpic(long id) {
+        return read(() -> copyEpic(super.getEpic(id)));
+    }
+
+    @Override
+    public Subtask getSubtask(long id) {
+        return read(() -> super.getSubtask(id));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksOfEpic(long epicId) {
+        return read(() -> super.getSubtasksOfEpic(epicId));
+    }
+
+    @Override
+    public void addDependency(long blockerId, long blockedId) {
+        write(() -> super.addDependency(blockerId, blockedId));
+    }
+
+    @Override
+    public void removeDependency(long blockerId, long blockedId) {
+        write(() -> super.removeDependency(blockerId, blockedId));
+    }
+
+    @Override
+    public List<Dependency> getDependencies() {
+        return read(super::getDependencies);
+    }
+
+    @Override
+    public List<Task> getBlockers(long id) {
+        return read(() -> super.getBlockers(id));
+    }
+
+    @Override
+    public List<Task> getTopologicalOrder() {
+        return read(super::getTopologicalOrder);
+    }
+
+    @Override
+    public CriticalPath getCriticalPath() {
+        return read(super::getCriticalPath);
+    }
+
+    @Override
+    public Task createNewTask(Task task) {
+        return write(() -> super.createNewTask(task), TaskType.TASK);
+    }
+
+    @Override
+    public Epic createNewEpic(Epic epic) {
+        return write(() -> super.createNewEpic(epic), TaskType.EPIC);
+    }
+
+    @Override
+    public Subtask createNewSubtask(Subtask subtask) {
+        return write(() -> {
+            forgetEpicCopy(subtask);
+            return super.createNewSubtask(subtask);
+        }, TaskType.SUBTASK);
+    }
+
+    @Override
+    public List<Task> createAll(List<? extends Task> newTasks) {
+        return write(() -> {
+            newTasks.forEach(this::forgetEpicCopy);
+            return super.createAll(newTasks);
+        }, TaskType.TASK, TaskType.SUBTASK);
+    }
+
+    @Override
+    public void updateTask(Task updatedTask) {
+        write(() -> super.updateTask(updatedTask), TaskType.TASK);
+    }
+
+    @Override
+    public void updateSubtask(Subtask updatedSubtask) {
+        write(() -> {
+            forgetEpicCopy(updatedSubtask);
+            super.updateSubtask(updatedSubtask);
+        }, TaskType.SUBTASK);
+    }
+
+    @Override
+    public void updateEpic(Epic updatedEpic) {
+        write(() -> {
+            forgetEpicCopy(updatedEpic);
+            super.updateEpic(updatedEpic);
+        }, TaskType.EPIC);
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> updatedTasks) {
+        write(() -> {
+            updatedTasks.forEach(this::forgetEpicCopy);
+            super.updateAll(updatedTasks);
+        }, TaskType.TASK, TaskType.EPIC, TaskType.SUBTASK);
+    }
+
+    @Override
+    public void removeTask(long id) {
+        write(() -> super.removeTask(id), TaskType.TASK);
+    }
+
+    @Override
+    public void removeSubtask(long id) {
+        write(() -> {
+            forgetEpicCopy(findStoredTask(id));
+            super.removeSubtask(id);
+        }, TaskType.SUBTASK);
+    }
+
+    @Override
+    public void removeEpic(long id) {
+        write(() -> {
+            epicCopies.remove(id);
+            super.removeEpic(id);
+        }, TaskType.EPIC, TaskType.SUBTASK);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(() -> super.getHistory().stream()
+                .map(task -> task instanceof Epic epic ? copyEpic(epic) : task)
+                .toList());
+    }
+
+    // копия, так как по представлению TreeSet нельзя итерироваться вне блокировки
+    @Override
+    public SortedSet<Task> getPrioritizedTasks() {
+        return read(() -> Collections.unmodifiableSortedSet(new TreeSet<>(super.getPrioritizedTasks())));
+    }
+
+    @Override
+    public SortedSet<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return read(() -> Collections.unmodifiableSortedSet(new TreeSet<>(super.getPrioritizedTasks(from, to))));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> super.getPrioritizedTasks(from, to, limit));
+    }
+
+    @Override
+    public SortedMap<LocalDate, List<Task>> getCalendar(LocalDate from, LocalDate to) {
+        return read(() -> super.getCalendar(from, to));
+    }
+
+    @Override
+    public List<TimeSlot> getFreeTimeSlots(LocalDateTime after, Duration duration, int count) {
+        return read(() -> super.getFreeTimeSlots(after, duration, count));
+    }
+
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // changed - хранилища, которые меняет операция, их списки пересобираются для нового снимка
+    private <T> T write(Supplier<T> action, TaskType... changed) {
+        lock.writeLock().lock();
+        try {
+            T result = action.get();
+            // изменение зависимостей не меняет списки задач, снимок не публикуется
+            if (snapshotReads && changed.length > 0) {
+                publishSnapshot(EnumSet.of(changed[0], changed));
+            }
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(Runnable action, TaskType... changed) {
+        write(() -> {
+            action.run();
+            return null;
+        }, changed);
+    }
+
+    // изменение подзадач меняет статус, время и список подзадач их эпиков, поэтому список эпиков тоже пересобирается,
+    // заново копируются только эпики, копии которых удалила запись
+    private void publishSnapshot(Set<TaskType> changed) {
+        Snapshot current = snapshot;
+        snapshot = new Snapshot(current.version() + 1,
+                changed.contains(TaskType.TASK)
+                        ? Collections.unmodifiableList(super.getAllTasks()) : current.tasks(),
+                changed.contains(TaskType.EPIC) || changed.contains(TaskType.SUBTASK)
+                        ? copyEpics(super.getAllEpics()) : current.epics(),
+                changed.contains(TaskType.SUBTASK)
+                        ? Collections.unmodifiableList(super.getAllSubtasks()) : current.subtasks());
+    }
+
+    private List<Epic> copyEpics(List<Epic> epics) {
+        return epics.stream().map(this::copyEpic).toList();
+    }
+
+    private Epic copyEpic(Epic epic) {
+        return epicCopies.computeIfAbsent(epic.getId(), id -> new Epic(epic));
+    }
+
+    // вызывается под блокировкой записи до изменения: подзадача меняет прежний эпик и эпик новой версии
+    private void forgetEpicCopy(Task task) {
+        if (task instanceof Epic epic) {
+            epicCopies.remove(epic.getId());
+        } else if (task instanceof Subtask subtask) {
+            epicCopies.remove(subtask.getEpicId());
+            if (findStoredTask(subtask.getId()) instanceof Subtask stored) {
+                epicCopies.remove(stored.getEpicId());
+            }
+        }
+    }
+
+    private record Snapshot(long version, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) {
+    }
+
+    private static class SynchronizedHistoryManager implements HistoryManager {
+        private final HistoryManager historyManager;
+
+        SynchronizedHistoryManager(HistoryManager historyManager) {
+            this.historyManager = historyManager;
+        }
+
+        @Override
+        public synchronized void addTask(Task task) {
+            historyManager.addTask(task);
+        }
+
+        @Override
+        public synchronized void remove(long id) {
+            historyManager.remove(id);
+        }
+
+        @Override
+        public synchronized void removeIf(Predicate<? super Task> filter) {
+            historyManager.removeIf(filter);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return historyManager.getHistory();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package service;
+
+import exceptions.DependencyCycleException;
+import model.CriticalPath;
+import model.Dependency;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * Directed acyclic graph of task dependencies with an incrementally maintained topological order
+ * (Pearce-Kelly algorithm). An edge that agrees with the current order is added in O(1),
+ * otherwise only the nodes between the ends of the edge in the order are visited and renumbered.
+ * A new node without links is put at the front or at the end of the order, so it never causes renumbering.
+ * Only tasks with at least one link are kept in the graph.
+ */
+final class DependencyGraph {
+    private final LongObjectHashMap<Node> nodes = new LongObjectHashMap<>();
+    // узлы по позициям в топологическом порядке, позиции могут быть отрицательными
+    private final TreeMap<Long, Node> order = new TreeMap<>();
+    private long firstPosition;
+    private long lastPosition;
+
+    /**
+     * Adds the edge, returns false if it already exists.
+     * @throws DependencyCycleException if the edge closes a cycle, the graph is not changed then
+     */
+    boolean addEdge(long blockerId, long blockedId) {
+        if (blockerId == blockedId) {
+            throw new DependencyCycleException("Задача не может блокировать сама себя");
+        }
+        Node blocker = nodes.get(blockerId);
+        Node blocked = nodes.get(blockedId);
+        if (blocker != null && blocked != null) {
+            if (blocker.successors.contains(blocked)) {
+                return false;
+            }
+            if (blocked.position < blocker.position) {
+                reorder(blocker, blocked);
+            }
+        }
+        // у нового блокирующего узла нет предшественников, у нового блокируемого - последователей
+        if (blocker == null) {
+            blocker = addNode(blockerId, --firstPosition);
+        }
+        if (blocked == null) {
+            blocked = addNode(blockedId, ++lastPosition);
+        }
+        blocker.successors.add(blocked);
+        blocked.predecessors.add(blocker);
+        return true;
+    }
+
+    boolean removeEdge(long blockerId, long blockedId) {
+        Node blocker = nodes.get(blockerId);
+        Node blocked = nodes.get(blockedId);
+        if (blocker == null || blocked == null || !blocker.successors.remove(blocked)) {
+            return false;
+        }
+        blocked.predecessors.remove(blocker);
+        removeIfIsolated(blocker);
+        removeIfIsolated(blocked);
+        return true;
+    }
+
+    void removeNode(long id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            return;
+        }
+        List<Node> neighbours = new ArrayList<>(node.predecessors);
+        neighbours.addAll(node.successors);
+        node.predecessors.forEach(predecessor -> predecessor.successors.remove(node));
+        node.successors.forEach(successor -> successor.predecessors.remove(node));
+        nodes.remove(id);
+        order.remove(node.position);
+        neighbours.forEach(this::removeIfIsolated);
+    }
+
+    void removeIf(LongPredicate filter) {
+        for (Node node : new ArrayList<>(order.values())) {
+            if (filter.test(node.id)) {
+                removeNode(node.id);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    List<Long> topologicalOrder() {
+        return order.values().stream().map(node -> node.id).toList();
+    }
+
+    List<Long> predecessors(long id) {
+        Node node = nodes.get(id);
+        return node == null ? List.of() : node.predecessors.stream().map(predecessor -> predecessor.id).toList();
+    }
+
+    /**
+     * Returns all edges, blockers go in the topological order.
+     */
+    List<Dependency> edges() {
+        List<Dependency> edges = new ArrayList<>();
+        for (Node node : order.values()) {
+            node.successors.forEach(successor -> edges.add(new Dependency(node.id, successor.id)));
+        }
+        return edges;
+    }
+
+    /**
+     * Finds the critical path in one pass over the topological order, O(V + E).
+     * A task starts at its start time or after the end of its latest blocker, whichever is later.
+     * Times are counted from the earliest start time in the graph, a task without a start time
+     * and without blockers starts at that moment. A task without duration takes no time.
+     */
+    CriticalPath criticalPath(LongFunction<Task> taskById) {
+        if (order.isEmpty()) {
+            return new CriticalPath(List.of(), null, null, Duration.ZERO);
+        }
+        LocalDateTime graphStart = order.values().stream()
+                .map(node -> taskById.apply(node.id).getStartTime())
+                .filter(startTime -> startTime != null)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        Node last = null;
+        for (Node node : order.values()) {
+            Task task = taskById.apply(node.id);
+            node.earliestStart = task.getStartTime() == null ? 0
+                    : Duration.between(graphStart, task.getStartTime()).toSeconds();
+            node.criticalPredecessor = null;
+            for (Node predecessor : node.predecessors) {
+                if (node.criticalPredecessor == null
+                        || predecessor.earliestFinish > node.criticalPredecessor.earliestFinish) {
+                    node.criticalPredecessor = predecessor;
+                }
+            }
+            // предшественник без запаса по времени тоже лежит на критическом пути
+            if (node.criticalPredecessor != null) {
+                if (node.criticalPredecessor.earliestFinish >= node.earliestStart) {
+                    node.earliestStart = node.criticalPredecessor.earliestFinish;
+                } else {
+                    node.criticalPredecessor = null;
+                }
+            }
+            long durationSeconds = task.getDuration() == null ? 0 : task.getDuration().toSeconds();
+            node.earliestFinish = node.earliestStart + durationSeconds;
+            if (last == null || node.earliestFinish > last.earliestFinish) {
+                last = node;
+            }
+        }
+        List<Task> path = new ArrayList<>();
+        Node first = last;
+        for (Node node = last; node != null; node = node.criticalPredecessor) {
+            path.add(taskById.apply(node.id));
+            first = node;
+        }
+        Collections.reverse(path);
+        Duration duration = Duration.ofSeconds(last.earliestFinish - first.earliestStart);
+        if (graphStart == null) {
+            return new CriticalPath(path, null, null, duration);
+        }
+        return new CriticalPath(path, graphStart.plusSeconds(first.earliestStart),
+                graphStart.plusSeconds(last.earliestFinish), duration);
+    }
+
+    private Node addNode(long id, long position) {
+        Node node = new Node(id, position);
+        nodes.put(id, node);
+        order.put(position, node);
+        return node;
+    }
+
+    private void removeIfIsolated(Node node) {
+        if (node.predecessors.isEmpty() && node.successors.isEmpty()) {
+            nodes.remove(node.id);
+            order.remove(node.position);
+        }
+    }
+
+    /**
+     * The edge blocker -> blocked goes against the order. Nodes reachable from blocked and placed
+     * before blocker must move after the nodes that reach blocker and are placed after blocked.
+     * Both groups take the same set of positions, other nodes keep theirs.
+     */
+    private void reorder(Node blocker, Node blocked) {
+        List<Node> forward = new ArrayList<>();
+        List<Node> backward = new ArrayList<>();
+        try {
+            if (!collectForward(blocked, blocker, forward)) {
+                throw new DependencyCycleException("Зависимость образует цикл: задача id = " + blocked.id
+                        + " уже блокирует задачу id = " + blocker.id);
+            }
+            collectBackward(blocker, blocked.position, backward);
+        } finally {
+            forward.forEach(node -> node.visited = false);
+            backward.forEach(node -> node.visited = false);
+        }
+        Comparator<Node> byPosition = Comparator.comparingLong(node -> node.position);
+        forward.sort(byPosition);
+        backward.sort(byPosition);
+        List<Long> positions = new ArrayList<>(forward.size() + backward.size());
+        backward.forEach(node -> positions.add(node.position));
+        forward.forEach(node -> positions.add(node.position));
+        Collections.sort(positions);
+        List<Node> reordered = new ArrayList<>(backward);
+        reordered.addAll(forward);
+        for (int i = 0; i < reordered.size(); i++) {
+            Node node = reordered.get(i);
+            node.position = positions.get(i);
+            order.put(node.position, node);
+        }
+    }
+
+    // обход последователей с позициями до blocker, false - если blocker достижим и ребро замкнёт цикл
+    private boolean collectForward(Node start, Node blocker, List<Node> visited) {
+        List<Node> stack = new ArrayList<>();
+        stack.add(start);
+        start.visited = true;
+        visited.add(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.removeLast();
+            for (Node successor : node.successors) {
+                if (successor == blocker) {
+                    return false;
+                }
+                if (!successor.visited && successor.position < blocker.position) {
+                    successor.visited = true;
+                    visited.add(successor);
+                    stack.add(successor);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void collectBackward(Node start, long lowerBound, List<Node> visited) {
+        List<Node> stack = new ArrayList<>();
+        stack.add(start);
+        start.visited = true;
+        visited.add(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.removeLast();
+            for (Node predecessor : node.predecessors) {
+                if (!predecessor.visited && predecessor.position > lowerBound) {
+                    predecessor.visited = true;
+                    visited.add(predecessor);
+                    stack.add(predecessor);
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+        private final long id;
+        private long position;
+        private final LinkedHashSet<Node> successors = new LinkedHashSet<>();
+        private final LinkedHashSet<Node> predecessors = new LinkedHashSet<>();
+        private boolean visited;
+        // расчёт критического пути, секунды от самого раннего времени начала в графе
+        private long earliestStart;
+        private long earliestFinish;
+        private Node criticalPredecessor;
+
+        private Node(long id, long position) {
+            this.id = id;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package service;
+
+import exceptions.ManagerLoadFileException;
+import exceptions.ManagerSaveException;
+import model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SequencedSet;
+import java.util.function.LongFunction;
+
+/**
+ * History of {@link FileBackedTaskManager}, that keeps the order of views in an append-only file:
+ * every view appends one line with the id of the task. When the file grows to twice the history
+ * it is compacted, i.e. rewritten with the ids of the history in their order.
+ * <p>
+ * Removals are not written: a removed task is not found in the manager on restore, and its id is not reused.
+ * The history is restored with the current versions of the tasks.
+ */
+final class FileBackedHistoryManager extends InMemoryHistoryManager implements Closeable {
+    // короткая история не сжимается на каждом просмотре
+    private static final int MIN_COMPACT_RECORDS = 1000;
+    private final Path path;
+    // открывается после восстановления, до этого просмотры не записываются
+    private FileChannel channel;
+    private long records;
+
+    FileBackedHistoryManager(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        super.addTask(task);
+        if (task == null || channel == null) {
+            return;
+        }
+        try {
+            channel.write(ByteBuffer.wrap((task.getId() + "\n").getBytes(StandardCharsets.UTF_8)));
+            records++;
+            if (records >= Math.max(MIN_COMPACT_RECORDS, 2L * size())) {
+                compact();
+            }
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось записать историю просмотров " + path.getFileName(), ex);
+        }
+    }
+
+    /**
+     * Reads the file and adds to the history the tasks, that {@code lookup} finds by their ids, in the order
+     * of their last views. Each task is added once. Afterwards the views are written to the file.
+     */
+    void restore(LongFunction<Task> lookup) {
+        boolean torn = false;
+        SequencedSet<Long> ids = new LinkedHashSet<>();
+        try {
+            if (Files.exists(path)) {
+                String content = Files.readString(path, StandardCharsets.UTF_8);
+                // строка без перевода строки в конце оборвана при записи, дописанный id склеился бы с ней
+                torn = !content.isEmpty() && content.charAt(content.length() - 1) != '\n';
+                List<String> lines = content.lines().toList();
+                for (int i = 0; i < lines.size() - (torn ? 1 : 0); i++) {
+                    Long id = Long.parseLong(lines.get(i));
+                    ids.remove(id);
+                    ids.add(id);
+                }
+                records = lines.size();
+            }
+        } catch (IOException | NumberFormatException ex) {
+            throw new ManagerLoadFileException("Ошибка чтения истории просмотров " + path.getFileName(), ex);
+        }
+        for (long id : ids) {
+            super.addTask(lookup.apply(id));
+        }
+        try {
+            if (torn || records >= Math.max(MIN_COMPACT_RECORDS, 2L * size())) {
+                compact();
+            } else {
+                channel = open();
+            }
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось открыть историю просмотров " + path.getFileName(), ex);
+        }
+    }
+
+    // файл пишется во временный файл и заменяет прежний переименованием, обрыв оставляет прежнюю историю
+    private void compact() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<Task> history = getHistory();
+        history.forEach(task -> content.append(task.getId()).append('\n'));
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tempPath, content, StandardCharsets.UTF_8);
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open();
+        records = history.size();
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
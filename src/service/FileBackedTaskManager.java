@@ -1,211 +1,1194 @@
 package service;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.StringJoiner;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
 
 import exceptions.*;
 import model.*;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    // id резервируются блоками, файл счётчика перезаписывается один раз на блок
+    private static final int ID_BLOCK_SIZE = 1000;
+    // заголовок снимка: названия колонок, затем число записей и CRC32 всех строк после заголовка
+    private static final String TITLE = "id,type,name,status,description,startTime,duration,epic";
+    private static final String RECORDS_META = "records=";
+    private static final String CRC32_META = "crc32=";
+    // в заголовке дельта-снимка - контрольная сумма файла задач, к которому он относится
+    private static final String BASE_META = "base=";
+    private static final String DELTA_SUFFIX = ".delta.";
+    private static final int GZIP_MAGIC = 0x1f8b;
+    // размер части файла, которую один поток разбирает при параллельной загрузке
+    private static final int PARALLEL_LOAD_CHUNK = 1 << 20;
     private final Path path;
+    private final StorageOptions options;
+    // открывается после загрузки, до этого изменения применяются без записи в журнал
+    private Journal journal;
+    // строки журнала и публичные toString/fromString, снимок пишется и читается своими экземплярами
+    private final TaskCsvCodec codec = new TaskCsvCodec();
+    private Duration loadDuration = Duration.ZERO;
+    private boolean loadedFromPreviousSnapshot;
+    // изменения после последнего сохранения для дельта-снимка: id задач и зависимости с признаком наличия
+    private final Set<Long> changedIds = new HashSet<>();
+    private final Map<Dependency, Boolean> changedDependencies = new HashMap<>();
+    // контрольная сумма файла задач, к которому пишется цепочка, null - следующий снимок пишется целиком
+    private String baseChecksum;
+    private int deltaCount;
+    // изменения не выполняются, пока фоновая контрольная точка снимает состояние; контрольные точки не пересекаются
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private Checkpointer checkpointer;
+    // номер последней записи журнала, вошедшей в файл задач
+    private long checkpointSeq;
+    private volatile Duration checkpointDuration = Duration.ZERO;
+    // null если история просмотров не сохраняется
+    private final FileBackedHistoryManager history;
 
-    private FileBackedTaskManager(Path path) throws IOException {
+    private FileBackedTaskManager(Path path, StorageOptions options) throws IOException {
+        this(path, options, options.isPersistentHistory() ? new FileBackedHistoryManager(getHistoryFilePath(path)) : null);
+    }
+
+    private FileBackedTaskManager(Path path, StorageOptions options, FileBackedHistoryManager history)
+            throws IOException {
+        super(history != null ? history : Managers.getDefaultHistory(), createIdGenerator(path));
         this.path = path;
+        this.options = options;
+        this.history = history;
         if (Files.notExists(path)) {
+            Files.deleteIfExists(getHistoryFilePath(path));
+            Files.deleteIfExists(getJournalFilePath(path));
+            Files.deleteIfExists(getPreviousSnapshotPath(path));
+            deleteDeltaSnapshots(path, 1);
+            Journal.removeSegments(getJournalFilePath(path), Long.MAX_VALUE);
             Files.createFile(path);
         }
     }
 
+    /**
+     * Returns the path of the file that keeps the last reserved id next to the task file.
+     */
+    public static Path getIdFilePath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".id");
+    }
+
+    /**
+     * Returns the path of the journal of changes next to the task file.
+     */
+    public static Path getJournalFilePath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".log");
+    }
+
+    /**
+     * Returns the path of the file of the browsing history next to the task file.
+     */
+    public static Path getHistoryFilePath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".history");
+    }
+
+    /**
+     * Returns the path of the previous snapshot of the task file, it is loaded when the task file is corrupted.
+     */
+    public static Path getPreviousSnapshotPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".bak");
+    }
+
+    /**
+     * Returns the path of the delta snapshot with the given number in the chain after the task file,
+     * the numbers start with 1.
+     */
+    public static Path getDeltaSnapshotPath(Path path, int number) {
+        return path.resolveSibling(path.getFileName() + DELTA_SUFFIX + number);
+    }
+
+    private static Path getTempFilePath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    // файл счётчика без файла задач остался от удалённого менеджера, новый менеджер начинает id с 1
+    private static IdGenerator createIdGenerator(Path path) throws IOException {
+        Path idFilePath = getIdFilePath(path);
+        if (Files.notExists(path)) {
+            Files.deleteIfExists(idFilePath);
+        }
+        return new BlockIdGenerator(new FileIdBlockSource(idFilePath), ID_BLOCK_SIZE);
+    }
+
     private void save() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(path.toString(), StandardCharsets.UTF_8))) {
-            bw.write("id,type,name,status,description,startTime,duration,epic");
-            bw.newLine();
-            for (Task task : getAllTasks()) {
-                bw.write(toString(task));
-                bw.newLine();
-            }
-            for (Epic epic : getAllEpics()) {
-                bw.write(toString(epic));
-                bw.newLine();
+        if (isDeltaAllowed()) {
+            writeDeltaSnapshot();
+        } else {
+            writeSnapshot(path, options.getSnapshotFormat());
+        }
+    }
+
+    // дельта-снимок больше файла задач не пишется, длинная цепочка замедлила бы загрузку
+    private boolean isDeltaAllowed() {
+        return options.isDeltaSnapshots() && baseChecksum != null && deltaCount < options.getMaxDeltaSnapshots()
+                && changedIds.size() + changedDependencies.size() < getStoredCount();
+    }
+
+    /**
+     * Writes all tasks to {@code target} in the given format, the task file is not changed.
+     * The written file is loaded by {@link #loadFromFile} like a task file of any format,
+     * so CSV stays the format for import and export of a board kept in the binary format.
+     */
+    public void exportSnapshot(Path target, StorageOptions.SnapshotFormat format) {
+        writeSnapshot(target, format);
+    }
+
+    /**
+     * Writes the whole snapshot. A snapshot of the task file ends the chain of delta snapshots: the new file
+     * does not match the checksum in their headers, so they are not loaded even if their removal is interrupted.
+     * A snapshot with the same content as the task file is not written, the chain is removed from its first
+     * delta snapshot, so an interrupted removal leaves a chain without its start, which is not loaded either.
+     */
+    private void writeSnapshot(Path target, StorageOptions.SnapshotFormat format) {
+        ByteBuffer[] content = encodeSnapshot(captureSnapshot(), format);
+        if (target.equals(path)) {
+            changedIds.clear();
+            changedDependencies.clear();
+            commitSnapshot(content);
+            return;
+        }
+        try {
+            writeFile(target, compress(content), false);
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось выполнить сохранение задач в файл", ex);
+        }
+    }
+
+    // задачи и подзадачи при обновлении заменяются новыми объектами, поэтому берутся как есть; эпики
+    // изменяются на месте записями подзадач, поэтому копируются, но только поля, которые пишет снимок
+    private SnapshotView captureSnapshot() {
+        List<Epic> epics = getAllEpics();
+        epics.replaceAll(FileBackedTaskManager::copyEpicHead);
+        return new SnapshotView(getAllTasks(), epics, getAllSubtasks(), getDependencies(),
+                journal != null ? journal.getLastSeq() : -1);
+    }
+
+    private static Epic copyEpicHead(Epic epic) {
+        Epic copy = new Epic(epic.getName(), epic.getDescription());
+        copy.setId(epic.getId());
+        copy.setStatus(epic.getStatus());
+        return copy;
+    }
+
+    private ByteBuffer[] encodeSnapshot(SnapshotView view, StorageOptions.SnapshotFormat format) {
+        return switch (format) {
+            case CSV -> encodeCsv(view);
+            case BINARY -> new ByteBuffer[] {BinarySnapshot.encode(view.tasks(), view.epics(), view.subtasks(),
+                    view.dependencies(), Math.max(view.lastSeq(), 0))};
+        };
+    }
+
+    // отметки изменений для дельта-снимка сбрасываются при снятии снимка; если запись не удалась,
+    // следующий снимок пишется целиком. Снимок сжимается здесь, вне блокировки фоновой контрольной точки
+    private void commitSnapshot(ByteBuffer[] encoded) {
+        ByteBuffer[] content = compress(encoded);
+        String checksum = options.isDeltaSnapshots() ? checksum(content) : null;
+        try {
+            if (checksum == null || !checksum.equals(baseChecksum)) {
+                writeFile(path, content, true);
             }
-            for (Subtask subtask : getAllSubtasks()) {
-                bw.write(toString(subtask));
-                bw.newLine();
+            if (deltaCount > 0) {
+                deleteDeltaSnapshots(path, 1);
             }
+            deltaCount = 0;
+            baseChecksum = checksum;
         } catch (IOException ex) {
+            baseChecksum = null;
             throw new ManagerSaveException("Не удалось выполнить сохранение задач в файл", ex);
         }
     }
 
-    public String toString(Task task) {
-        char separator = ',';
-        char separatorToReplace = '.';
-        StringJoiner joiner = new StringJoiner(String.valueOf(separator));
-        joiner.add(String.valueOf(task.getId()));
-        joiner.add(String.valueOf(task.getType()));
-        joiner.add(task.getName() != null ?
-                task.getName().replace(separator, separatorToReplace) : "null");
-        joiner.add(String.valueOf(task.getStatus()));
-        joiner.add(task.getDescription() != null ?
-                task.getDescription().replace(separator,separatorToReplace) : "null");
-        if (task.getType() != TaskType.EPIC) {
-            joiner.add(task.getStartTime() != null ?
-                    String.valueOf(task.getStartTime().toEpochSecond(ZoneOffset.UTC)) : "null");
-            joiner.add(task.getDuration() != null ?
-                    String.valueOf(task.getDuration().get(ChronoUnit.SECONDS)) : "null");
-            if (task.getType() == TaskType.SUBTASK) {
-                joiner.add(String.valueOf(((Subtask) task).getEpicId()));
-            }
-        }
-        return joiner.toString();
+    // в дельта-снимок попадают задачи и зависимости, изменённые после последнего сохранения
+    private void writeDeltaSnapshot() {
+        if (changedIds.isEmpty() && changedDependencies.isEmpty()) {
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        int records = 0;
+        for (long id : changedIds) {
+            Task task = findStoredTask(id);
+            if (task != null) {
+                codec.append(task, body).append('\n');
+            } else {
+                codec.appendRemoval(id, body).append('\n');
+            }
+            records++;
+        }
+        for (Map.Entry<Dependency, Boolean> change : changedDependencies.entrySet()) {
+            if (change.getValue()) {
+                codec.appendDependency(change.getKey(), body).append('\n');
+            } else {
+                codec.appendDependencyRemoval(change.getKey(), body).append('\n');
+            }
+            records++;
+        }
+        if (journal != null) {
+            codec.appendJournalMark(journal.getLastSeq(), body).append('\n');
+            records++;
+        }
+        try {
+            writeFile(getDeltaSnapshotPath(path, deltaCount + 1), compress(encodeCsvFile(body, records, baseChecksum)),
+                    false);
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось выполнить сохранение дельта-снимка", ex);
+        }
+        deltaCount++;
+        changedIds.clear();
+        changedDependencies.clear();
     }
 
-    public Task fromString(String value) {
+    // файл пишется во временный файл и заменяет прежний переименованием, поэтому обрыв записи
+    // оставляет на диске прежний целый файл; заменённый снимок файла задач остаётся резервной копией
+    private void writeFile(Path target, ByteBuffer[] content, boolean keepPrevious) throws IOException {
+        // временный файл сбрасывается на диск до переименования при любой политике fsync: политика относится
+        // к журналу, а переименование несброшенного файла после сбоя питания оставило бы пустой файл задач
+        Path tempPath = getTempFilePath(target);
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content[content.length - 1].hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(false);
+        }
+        if (keepPrevious) {
+            keepPreviousSnapshot();
+        }
+        Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target);
+    }
+
+    // сжатый файл пишется одним буфером; снимок пишется при каждом изменении, поэтому сжатие быстрое
+    private ByteBuffer[] compress(ByteBuffer[] content) {
+        if (!options.isCompressed()) {
+            return content;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        }) {
+            for (ByteBuffer buffer : content) {
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // запись в память не бросает IOException
+        }
+        return new ByteBuffer[] {ByteBuffer.wrap(bytes.toByteArray())};
+    }
+
+    // строки пишутся кодеком сразу в общий буфер, зависимости после всех задач, отметка журнала последней
+    private ByteBuffer[] encodeCsv(SnapshotView view) {
+        StringBuilder body = new StringBuilder();
+        int records = 0;
+        for (Task task : view.tasks()) {
+            codec.append(task, body).append('\n');
+            records++;
+        }
+        for (Epic epic : view.epics()) {
+            codec.append(epic, body).append('\n');
+            records++;
+        }
+        for (Subtask subtask : view.subtasks()) {
+            codec.append(subtask, body).append('\n');
+            records++;
+        }
+        for (Dependency dependency : view.dependencies()) {
+            codec.appendDependency(dependency, body).append('\n');
+            records++;
+        }
+        if (view.lastSeq() >= 0) {
+            codec.appendJournalMark(view.lastSeq(), body).append('\n');
+            records++;
+        }
+        return encodeCsvFile(body, records, null);
+    }
+
+    private static ByteBuffer[] encodeCsvFile(StringBuilder body, int records, String base) {
+        byte[] bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        String header = TITLE + ";" + RECORDS_META + records + ";" + CRC32_META + checksum(bodyBytes, 0)
+                + (base != null ? ";" + BASE_META + base : "") + "\n";
+        return new ByteBuffer[] {ByteBuffer.wrap(header.getBytes(StandardCharsets.UTF_8)), ByteBuffer.wrap(bodyBytes)};
+    }
+
+    // пустой файл только что создан и копией не считается; ссылка на прежний файл не копирует данные
+    private void keepPreviousSnapshot() throws IOException {
+        if (Files.notExists(path) || Files.size(path) == 0) {
+            return;
+        }
+        Path previousPath = getPreviousSnapshotPath(path);
+        Files.deleteIfExists(previousPath);
         try {
-            String[] fields = value.split(",");
-            Task task = null;
-            int id = Integer.parseInt(fields[0]);
-            TaskType taskType = TaskType.valueOf(fields[1]);
-            String name = !fields[2].equals("null") ? fields[2] : null;
-            TaskStatus status = TaskStatus.valueOf(fields[3]);
-            String description = !fields[4].equals("null") ? fields[4] : null;
-            LocalDateTime startTime = null;
-            Duration duration = null;
-            if (fields.length > 5) {
-                startTime = !fields[5].equals("null") ?
-                        LocalDateTime.ofEpochSecond(Integer.parseInt(fields[5]),0, ZoneOffset.UTC) : null;
-                duration = !fields[6].equals("null") ?
-                        Duration.ofSeconds(Integer.parseInt(fields[6])) : null;
-            }
-            switch (taskType) {
-                case TASK -> task = new Task(name, description, startTime, duration);
-                case SUBTASK -> {
-                    int epicId = Integer.parseInt(fields[7]);
-                    task = new Subtask(name, description, startTime, duration, epicId);
+            Files.createLink(previousPath, path);
+        } catch (UnsupportedOperationException | IOException ex) {
+            Files.copy(path, previousPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // переименование сохраняется на диске только вместе с каталогом; не все системы позволяют открыть каталог
+    private static void forceDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // переименование уже выполнено, снимок сохранится вместе с каталогом при сбросе буферов ОС
+        }
+    }
+
+    private static String checksum(byte[] bytes, int offset) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, bytes.length - offset);
+        return Long.toHexString(crc32.getValue());
+    }
+
+    private static String checksum(ByteBuffer[] content) {
+        CRC32 crc32 = new CRC32();
+        for (ByteBuffer buffer : content) {
+            crc32.update(buffer.duplicate());
+        }
+        return Long.toHexString(crc32.getValue());
+    }
+
+    private static String checksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return checksum(new ByteBuffer[] {channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())});
+        }
+    }
+
+    // номера удаляются по возрастанию; удаляются и файлы, оставшиеся после прерванного удаления цепочки
+    private static void deleteDeltaSnapshots(Path path, int fromNumber) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + DELTA_SUFFIX;
+        SortedMap<Integer, Path> deltas = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                file -> file.getFileName().toString().startsWith(prefix))) {
+            for (Path file : files) {
+                String number = file.getFileName().toString().substring(prefix.length());
+                if (number.matches("\\d{1,9}") && Integer.parseInt(number) >= fromNumber) {
+                    deltas.put(Integer.parseInt(number), file);
                 }
-                case EPIC -> task = new Epic(name, description);
             }
-            task.setStatus(status);
-            task.setId(id);
-            return task;
-        } catch (Exception ex) {
-            throw new ManagerParseTaskException("Неверный формат строки: " + value, ex);
         }
+        for (Path delta : deltas.values()) {
+            Files.deleteIfExists(delta);
+        }
+    }
+
+    // в режиме журнала изменение дописывается одной записью, иначе файл задач перезаписывается целиком
+    private void saveChange(String operation, String payload) {
+        if (journal != null) {
+            journal.append(operation, payload);
+            requestCheckpointBySize();
+        } else {
+            save();
+        }
+    }
+
+    private void requestCheckpointBySize() {
+        if (checkpointer != null && options.getCheckpointLogSize() > 0
+                && journal.getSegmentSize() >= options.getCheckpointLogSize()) {
+            checkpointer.request();
+        }
+    }
+
+    // изменения не выполняются, пока фоновая контрольная точка снимает состояние
+    private void locked(Runnable change) {
+        stateLock.lock();
+        try {
+            change.run();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private <T> T locked(Supplier<T> change) {
+        stateLock.lock();
+        try {
+            return change.get();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    // изменения отмечаются только в режиме дельта-снимков, иначе снимок пишется целиком
+    private void markChanged(long id) {
+        if (options.isDeltaSnapshots()) {
+            changedIds.add(id);
+        }
+    }
+
+    private void markChanged(List<? extends Task> changedTasks) {
+        changedTasks.forEach(task -> markChanged(task.getId()));
+    }
+
+    private void markDependencyChanged(long blockerId, long blockedId, boolean exists) {
+        if (options.isDeltaSnapshots()) {
+            changedDependencies.put(new Dependency(blockerId, blockedId), exists);
+        }
+    }
+
+    private void saveChange(String operation, List<? extends Task> batch) {
+        if (journal != null) {
+            journal.append(operation, batch.stream().map(this::toString).toList());
+            requestCheckpointBySize();
+        } else {
+            save();
+        }
+    }
+
+    /**
+     * Returns how long {@link #loadFromFile} took: reading the task file, restoring the tasks and replaying the journal.
+     */
+    public Duration getLoadDuration() {
+        return loadDuration;
+    }
+
+    /**
+     * Returns true if the task file was corrupted and {@link #loadFromFile} loaded the previous snapshot instead,
+     * the changes written after that snapshot are lost.
+     */
+    public boolean isLoadedFromPreviousSnapshot() {
+        return loadedFromPreviousSnapshot;
+    }
+
+    /**
+     * Returns how long the last checkpoint took, from taking the state to removing the covered journal segments.
+     * {@link Duration#ZERO} if there was no checkpoint.
+     */
+    public Duration getCheckpointDuration() {
+        return checkpointDuration;
+    }
+
+    /**
+     * Returns the exception of the last background checkpoint, or null if it succeeded or there was none.
+     * The changes of a failed checkpoint stay in the journal segments and are written by the next one.
+     */
+    public RuntimeException getCheckpointFailure() {
+        return checkpointer != null ? checkpointer.getFailure() : null;
+    }
+
+    /**
+     * Writes the task file and removes the journal records it contains, so the next start replays only
+     * later changes. If the process stops between these steps, the records already in the task file
+     * are skipped by their numbers. Changes wait until the checkpoint ends.
+     */
+    public void checkpoint() {
+        if (journal == null) {
+            locked(this::save);
+            return;
+        }
+        checkpointLock.lock();
+        try {
+            long start = System.nanoTime();
+            long lastSeq;
+            stateLock.lock();
+            try {
+                save();
+                lastSeq = journal.getLastSeq();
+                journal.roll();
+            } finally {
+                stateLock.unlock();
+            }
+            finishCheckpoint(lastSeq, start);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    /**
+     * Checkpoint of the background thread. Changes wait only while the lists of tasks are copied
+     * and the journal segment is closed, the snapshot is encoded, compressed and written without blocking them.
+     * The whole task file is written, as delta snapshots are written only by {@link #checkpoint()}.
+     */
+    private void checkpointInBackground() {
+        checkpointLock.lock();
+        try {
+            long start = System.nanoTime();
+            SnapshotView view;
+            stateLock.lock();
+            try {
+                if (journal.getLastSeq() == checkpointSeq) {
+                    return;
+                }
+                view = captureSnapshot();
+                changedIds.clear();
+                changedDependencies.clear();
+                journal.roll();
+            } finally {
+                stateLock.unlock();
+            }
+            commitSnapshot(encodeSnapshot(view, options.getSnapshotFormat()));
+            finishCheckpoint(view.lastSeq(), start);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    private void finishCheckpoint(long lastSeq, long start) {
+        try {
+            Journal.removeSegments(getJournalFilePath(path), lastSeq);
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось удалить сегменты журнала", ex);
+        }
+        checkpointSeq = lastSeq;
+        checkpointDuration = Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns a future, that completes when all changes made before the call are forced to the disk.
+     * With the group commit the changes are written by the writer thread, so a caller, that needs
+     * durability of its change, waits on this future. Without the journal the task file is forced at once.
+     */
+    public CompletableFuture<Void> sync() {
+        if (journal != null) {
+            return journal.sync();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(false);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(
+                    new ManagerSaveException("Не удалось сохранить файл на диск " + path.getFileName(), ex));
+        }
+    }
+
+    /**
+     * Waits for the running background checkpoint, writes the pending changes of the journal and closes it
+     * and the file of the browsing history. If the last background checkpoint failed, throws
+     * {@link ManagerSaveException} with its exception after closing the files.
+     */
+    @Override
+    public void close() {
+        RuntimeException checkpointFailure = null;
+        if (checkpointer != null) {
+            checkpointer.close();
+            checkpointFailure = checkpointer.getFailure();
+        }
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось закрыть журнал", ex);
+        }
+        try {
+            if (history != null) {
+                history.close();
+            }
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось закрыть историю просмотров", ex);
+        }
+        if (checkpointFailure != null) {
+            throw new ManagerSaveException("Не удалось выполнить фоновую контрольную точку", checkpointFailure);
+        }
+    }
+
+    public String toString(Task task) {
+        return codec.encode(task);
+    }
+
+    public Task fromString(String value) {
+        return codec.decode(value);
     }
 
     public static FileBackedTaskManager loadFromFile(Path path) {
+        return loadFromFile(path, StorageOptions.defaults());
+    }
+
+    /**
+     * Loads the task file and replays the journal records written after it.
+     * Without the journal mode the replayed changes are written to the task file and the journal is removed.
+     * With {@link StorageOptions#withPersistentHistory} the browsing history is restored from its file by ids.
+     */
+    public static FileBackedTaskManager loadFromFile(Path path, StorageOptions options) {
+        long loadStart = System.nanoTime();
         FileBackedTaskManager manager;
         try {
-            manager = new FileBackedTaskManager(path);
+            manager = new FileBackedTaskManager(path, options);
         } catch (IOException ex) {
             throw new ManagerLoadFileException("Ошибка создания файла " + path.getFileName(), ex);
         }
-        try  (BufferedReader reader = new BufferedReader(new FileReader(path.toString(), StandardCharsets.UTF_8))) {
-            reader.readLine(); // skip title string
-            int taskIdMaxValue = 0;
-            while (reader.ready()) {
-                String line = reader.readLine();
-                Task task = manager.fromString(line);
-                manager.idCounter = task.getId();
-                if (manager.idCounter > taskIdMaxValue) {
-                    taskIdMaxValue = manager.idCounter;
-                }
-                switch (task.getType()) {
-                    case TASK -> manager.createNewTask(task);
-                    case SUBTASK -> manager.createNewSubtask((Subtask) task);
-                    case EPIC -> manager.createNewEpic((Epic) task);
+        try {
+            long snapshotSeq = manager.readSnapshot();
+            long lastSeq = snapshotSeq;
+            Path journalPath = getJournalFilePath(path);
+            List<Path> segments = Journal.getSegments(journalPath);
+            for (Path segment : segments) {
+                lastSeq = Journal.replay(segment, lastSeq, manager::applyJournalRecord);
+            }
+            boolean hasJournal = Files.exists(journalPath);
+            if (hasJournal) {
+                lastSeq = Journal.replay(journalPath, lastSeq, manager::applyJournalRecord);
+            }
+            if (lastSeq != snapshotSeq) {
+                manager.baseChecksum = null; // изменения из журнала не отмечены для дельта-снимка
+            }
+            manager.checkpointSeq = snapshotSeq;
+            // история восстанавливается по id после журнала, когда все задачи уже загружены
+            if (manager.history != null) {
+                manager.history.restore(manager::findStoredTask);
+            } else {
+                Files.deleteIfExists(getHistoryFilePath(path));
+            }
+            if (options.isJournal()) {
+                manager.journal = new Journal(journalPath, lastSeq, options);
+                if (options.isBackgroundCheckpoint()) {
+                    manager.checkpointer = new Checkpointer(path.getFileName().toString(),
+                            options.getCheckpointInterval(), manager::checkpointInBackground);
                 }
+            } else if (hasJournal || !segments.isEmpty()) {
+                manager.save();
+                Files.deleteIfExists(journalPath);
+                Journal.removeSegments(journalPath, Long.MAX_VALUE);
             }
-            manager.idCounter = taskIdMaxValue + 1;
+            manager.loadDuration = Duration.ofNanos(System.nanoTime() - loadStart);
             return manager;
-        } catch (IOException | ManagerParseTaskException ex) {
+        } catch (IOException | ManagerParseTaskException | NumberFormatException ex) {
             throw new ManagerLoadFileException("Ошибка чтения файла " + path.getFileName(), ex);
         }
     }
 
+    /**
+     * Restores the tasks of the task file in any format merged with its chain of delta snapshots
+     * and returns the number of the last journal record in them. If the task file does not match its header,
+     * the previous snapshot is read instead and replaces the corrupted file. The headers are checked
+     * before any task is restored.
+     */
+    private long readSnapshot() throws IOException {
+        // временный файл остался от прерванного сохранения, файл задач при этом не изменился
+        Files.deleteIfExists(getTempFilePath(path));
+        SnapshotRecords records;
+        try {
+            records = readRecords(path);
+        } catch (ManagerLoadFileException ex) {
+            Path previousPath = getPreviousSnapshotPath(path);
+            if (Files.notExists(previousPath)) {
+                throw ex;
+            }
+            records = readRecords(previousPath);
+            loadedFromPreviousSnapshot = true;
+            Files.copy(previousPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        readDeltaSnapshots(records);
+        restoreRecords(records);
+        return records.lastSeq;
+    }
+
+    private SnapshotRecords readRecords(Path snapshotPath) throws IOException {
+        SnapshotRecords records = new SnapshotRecords();
+        byte[] bytes;
+        if (isCompressed(snapshotPath)) {
+            bytes = readCompressed(snapshotPath);
+        } else if (BinarySnapshot.isBinary(snapshotPath)) {
+            records.lastSeq = BinarySnapshot.read(snapshotPath, records);
+            return records;
+        } else {
+            bytes = Files.readAllBytes(snapshotPath);
+        }
+        if (BinarySnapshot.isBinary(bytes)) {
+            records.lastSeq = BinarySnapshot.read(ByteBuffer.wrap(bytes), snapshotPath, records);
+            return records;
+        }
+        // файл без проверяемого заголовка принимается, только если нет предыдущего снимка, который загрузится вместо него
+        boolean uncheckedAllowed = !snapshotPath.equals(path) || Files.notExists(getPreviousSnapshotPath(path));
+        CsvFile file = readCsvBody(snapshotPath, bytes, uncheckedAllowed);
+        if (file.base() != null) {
+            throw new ManagerLoadFileException("Файл " + snapshotPath.getFileName() + " является дельта-снимком", null);
+        }
+        ByteBuffer body = file.body();
+        if (options.isParallelLoad()) {
+            int[] bounds = splitRecords(bytes, body.position(), body.limit());
+            return ForkJoinPool.commonPool().invoke(new CsvParseTask(bytes, bounds, 0, bounds.length - 1));
+        }
+        return parseCsv(bytes, body.position(), body.limit(), records);
+    }
+
+    /**
+     * Reads the chain of delta snapshots of the task file and merges it into its records. The chain ends
+     * at the first missing number or at a delta snapshot written for another task file, e.g. left by
+     * an interrupted removal of the chain; the rest of the files is removed.
+     */
+    private void readDeltaSnapshots(SnapshotRecords records) throws IOException {
+        if (!options.isDeltaSnapshots() && Files.notExists(getDeltaSnapshotPath(path, 1))) {
+            return;
+        }
+        String checksum = checksum(path);
+        List<DeltaRecords> deltas = new ArrayList<>();
+        Path deltaPath = getDeltaSnapshotPath(path, 1);
+        while (Files.exists(deltaPath)) {
+            DeltaRecords delta = readDelta(deltaPath);
+            if (!checksum.equals(delta.base)) {
+                break;
+            }
+            deltas.add(delta);
+            deltaPath = getDeltaSnapshotPath(path, deltas.size() + 1);
+        }
+        deleteDeltaSnapshots(path, deltas.size() + 1);
+        records.merge(deltas);
+        deltaCount = deltas.size();
+        baseChecksum = options.isDeltaSnapshots() ? checksum : null;
+    }
+
+    private static DeltaRecords readDelta(Path deltaPath) throws IOException {
+        byte[] bytes = isCompressed(deltaPath) ? readCompressed(deltaPath) : Files.readAllBytes(deltaPath);
+        CsvFile file = readCsvBody(deltaPath, bytes, false);
+        if (file.base() == null) {
+            throw new ManagerLoadFileException("Файл " + deltaPath.getFileName() + " не является дельта-снимком", null);
+        }
+        DeltaRecords delta = new DeltaRecords(file.base());
+        parseCsv(bytes, file.body().position(), file.body().limit(), delta);
+        return delta;
+    }
+
+    private static boolean isCompressed(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return ((in.read() << 8) | in.read()) == GZIP_MAGIC;
+        }
+    }
+
+    // контрольная сумма GZIP проверяется при распаковке, повреждённый файл заменяется предыдущим снимком
+    private static byte[] readCompressed(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return in.readAllBytes();
+        } catch (ZipException | EOFException ex) {
+            throw new ManagerLoadFileException("Файл " + file.getFileName() + " повреждён: " + ex.getMessage(), ex);
+        }
+    }
+
+    // снимок записан менеджером, поэтому задачи добавляются одним пакетом без проверки каждой
+    private void restoreRecords(SnapshotRecords records) {
+        restoreAll(records.tasks, options.isVerifyOnLoad());
+        for (Dependency dependency : records.dependencies) {
+            try {
+                super.addDependency(dependency.getBlockerId(), dependency.getBlockedId());
+            } catch (RuntimeException ex) {
+                throw new ManagerParseTaskException("Неверная зависимость: " + dependency, ex);
+            }
+        }
+    }
+
+    // строки CSV-файла после заголовка и контрольная сумма файла задач из заголовка дельта-снимка
+    // состояние менеджера на момент снимка; -1 вместо номера записи, если журнал не ведётся
+    private record SnapshotView(List<Task> tasks, List<Epic> epics, List<Subtask> subtasks,
+                                List<Dependency> dependencies, long lastSeq) {
+    }
+
+    private record CsvFile(ByteBuffer body, String base) {
+    }
+
+    // файл без числа записей и контрольной суммы в заголовке - пустой или записанный прежней версией - не проверяется,
+    // если это разрешено; обрезанный внутри заголовка файл повреждён
+    private static CsvFile readCsvBody(Path path, byte[] bytes, boolean uncheckedAllowed) {
+        int headerEnd = 0;
+        while (headerEnd < bytes.length && bytes[headerEnd] != '\n') {
+            headerEnd++;
+        }
+        String header = new String(bytes, 0, headerEnd, StandardCharsets.UTF_8).strip();
+        int bodyStart = Math.min(headerEnd + 1, bytes.length);
+        ByteBuffer body = ByteBuffer.wrap(bytes, bodyStart, bytes.length - bodyStart);
+        String[] meta = header.split(";");
+        if (meta.length == 1) {
+            if (!uncheckedAllowed || bytes.length > 0 && !header.equals(TITLE)) {
+                throw new ManagerLoadFileException("Файл " + path.getFileName()
+                        + " повреждён: нет заголовка с числом записей и контрольной суммой", null);
+            }
+            return new CsvFile(body, null);
+        }
+        try {
+            if (meta.length < 3 || meta.length > 4 || !meta[1].startsWith(RECORDS_META)
+                    || !meta[2].startsWith(CRC32_META) || meta.length == 4 && !meta[3].startsWith(BASE_META)) {
+                throw new IllegalArgumentException("неверный заголовок");
+            }
+            int expectedRecords = Integer.parseInt(meta[1].substring(RECORDS_META.length()));
+            String expectedChecksum = meta[2].substring(CRC32_META.length());
+            int records = countRecords(bytes, bodyStart);
+            if (expectedRecords != records) {
+                throw new IllegalArgumentException("записей " + records + " вместо " + expectedRecords);
+            }
+            if (!expectedChecksum.equals(checksum(bytes, bodyStart))) {
+                throw new IllegalArgumentException("не совпадает контрольная сумма");
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new ManagerLoadFileException("Файл " + path.getFileName() + " повреждён: " + ex.getMessage(), ex);
+        }
+        return new CsvFile(body, meta.length == 4 ? meta[3].substring(BASE_META.length()) : null);
+    }
+
+    // последняя строка может быть без перевода строки
+    private static int countRecords(byte[] bytes, int from) {
+        int records = 0;
+        for (int start = from; start < bytes.length; records++) {
+            start = TaskCsvCodec.recordEnd(bytes, start, bytes.length) + 1;
+        }
+        return records;
+    }
+
+    // записи снимка в порядке чтения, части CSV-файла разбираются независимо и соединяются по порядку
+    private static class SnapshotRecords implements SnapshotHandler {
+        final List<Task> tasks = new ArrayList<>();
+        final List<Dependency> dependencies = new ArrayList<>();
+        long lastSeq;
+
+        @Override
+        public void restoreTask(Task task) {
+            tasks.add(task);
+        }
+
+        @Override
+        public void restoreDependency(long blockerId, long blockedId) {
+            dependencies.add(new Dependency(blockerId, blockedId));
+        }
+
+        private SnapshotRecords append(SnapshotRecords next) {
+            tasks.addAll(next.tasks);
+            dependencies.addAll(next.dependencies);
+            lastSeq = Math.max(lastSeq, next.lastSeq);
+            return this;
+        }
+
+        /**
+         * Applies the delta snapshots in the order of the chain: the last record of an id or a dependency
+         * in the chain replaces the record of the snapshot. Dependencies of removed tasks are dropped,
+         * as the manager drops them when it removes a task.
+         */
+        private void merge(List<DeltaRecords> deltas) {
+            if (deltas.isEmpty()) {
+                return;
+            }
+            // null - задача удалена
+            Map<Long, Task> changedTasks = new HashMap<>();
+            Map<Dependency, Boolean> changedDependencies = new HashMap<>();
+            for (DeltaRecords delta : deltas) {
+                delta.removedIds.forEach(id -> changedTasks.put(id, null));
+                delta.tasks.forEach(task -> changedTasks.put(task.getId(), task));
+                delta.removedDependencies.forEach(dependency -> changedDependencies.put(dependency, false));
+                delta.dependencies.forEach(dependency -> changedDependencies.put(dependency, true));
+                lastSeq = Math.max(lastSeq, delta.lastSeq);
+            }
+            tasks.removeIf(task -> changedTasks.containsKey(task.getId()));
+            changedTasks.values().stream().filter(Objects::nonNull).forEach(tasks::add);
+            dependencies.removeIf(changedDependencies::containsKey);
+            changedDependencies.forEach((dependency, exists) -> {
+                if (exists) {
+                    dependencies.add(dependency);
+                }
+            });
+            dependencies.removeIf(dependency -> isRemoved(changedTasks, dependency.getBlockerId())
+                    || isRemoved(changedTasks, dependency.getBlockedId()));
+        }
+
+        private static boolean isRemoved(Map<Long, Task> changedTasks, long id) {
+            return changedTasks.containsKey(id) && changedTasks.get(id) == null;
+        }
+    }
+
+    // записи дельта-снимка, кроме изменённых задач и зависимостей содержат удалённые
+    private static final class DeltaRecords extends SnapshotRecords {
+        private final String base;
+        private final List<Long> removedIds = new ArrayList<>();
+        private final List<Dependency> removedDependencies = new ArrayList<>();
+
+        private DeltaRecords(String base) {
+            this.base = base;
+        }
+
+        @Override
+        public void removeTask(long id) {
+            removedIds.add(id);
+        }
+
+        @Override
+        public void removeDependency(long blockerId, long blockedId) {
+            removedDependencies.add(new Dependency(blockerId, blockedId));
+        }
+    }
+
+    private static SnapshotRecords parseCsv(byte[] bytes, int from, int to) {
+        return parseCsv(bytes, from, to, new SnapshotRecords());
+    }
+
+    private static SnapshotRecords parseCsv(byte[] bytes, int from, int to, SnapshotRecords records) {
+        CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes, from, to - from));
+        records.lastSeq = new TaskCsvCodec().decodeRows(chars.array(), chars.arrayOffset() + chars.position(),
+                chars.arrayOffset() + chars.limit(), records);
+        return records;
+    }
+
+    /**
+     * Returns the bounds of parts of about {@link #PARALLEL_LOAD_CHUNK} bytes, each part holds whole rows.
+     * A row may hold a line break inside quotes, so the bounds are found by one pass from the first row.
+     */
+    private static int[] splitRecords(byte[] bytes, int from, int to) {
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(from);
+        int partStart = from;
+        int rowStart = from;
+        while (rowStart < to) {
+            rowStart = Math.min(TaskCsvCodec.recordEnd(bytes, rowStart, to) + 1, to);
+            if (rowStart - partStart >= PARALLEL_LOAD_CHUNK || rowStart == to) {
+                bounds.add(rowStart);
+                partStart = rowStart;
+            }
+        }
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Parses the parts of the task file between the given bounds in the common fork-join pool, halving the range
+     * of parts until one part is left. Linking subtasks to epics and building the time indexes is left
+     * to the single-threaded restore.
+     */
+    private static final class CsvParseTask extends RecursiveTask<SnapshotRecords> {
+        private static final long serialVersionUID = 1L;
+        private final byte[] bytes;
+        private final int[] bounds;
+        private final int firstPart;
+        private final int endPart;
+
+        private CsvParseTask(byte[] bytes, int[] bounds, int firstPart, int endPart) {
+            this.bytes = bytes;
+            this.bounds = bounds;
+            this.firstPart = firstPart;
+            this.endPart = endPart;
+        }
+
+        @Override
+        protected SnapshotRecords compute() {
+            if (endPart - firstPart <= 1) {
+                return endPart == firstPart ? new SnapshotRecords()
+                        : parseCsv(bytes, bounds[firstPart], bounds[endPart]);
+            }
+            int middle = (firstPart + endPart) / 2;
+            CsvParseTask first = new CsvParseTask(bytes, bounds, firstPart, middle);
+            first.fork();
+            SnapshotRecords second = new CsvParseTask(bytes, bounds, middle, endPart).compute();
+            return first.join().append(second);
+        }
+    }
+
+    // изменения из журнала применяются методами InMemoryTaskManager, повторно в журнал они не пишутся
+    private void applyJournalRecord(String operation, String payload, List<String> lines) {
+        switch (operation) {
+            case Journal.PUT -> {
+                Task task = fromString(payload);
+                if (!hasStoredId(task.getId())) {
+                    restoreTask(task);
+                    return;
+                }
+                switch (task.getType()) {
+                    case TASK -> super.updateTask(task);
+                    case SUBTASK -> super.updateSubtask((Subtask) task);
+                    case EPIC -> super.updateEpic((Epic) task);
+                }
+            }
+            case Journal.CREATE_ALL -> lines.forEach(line -> restoreTask(fromString(line)));
+            case Journal.UPDATE_ALL -> super.updateAll(lines.stream().map(this::fromString).toList());
+            case Journal.REMOVE -> {
+                String[] fields = payload.split(",");
+                long id = Long.parseLong(fields[1]);
+                switch (TaskType.valueOf(fields[0])) {
+                    case TASK -> super.removeTask(id);
+                    case SUBTASK -> super.removeSubtask(id);
+                    case EPIC -> super.removeEpic(id);
+                }
+            }
+            case Journal.CLEAR -> {
+                switch (TaskType.valueOf(payload)) {
+                    case TASK -> super.clearAllTasks();
+                    case SUBTASK -> super.clearAllSubtasks();
+                    case EPIC -> super.clearAllEpics();
+                }
+            }
+            case Journal.ADD_DEPENDENCY -> {
+                String[] fields = payload.split(",");
+                super.addDependency(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+            }
+            case Journal.REMOVE_DEPENDENCY -> {
+                String[] fields = payload.split(",");
+                super.removeDependency(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+            }
+            default -> throw new IllegalArgumentException("Неизвестная операция журнала: " + operation);
+        }
+    }
+
+    @Override
+    public void addDependency(long blockerId, long blockedId) {
+        locked(() -> {
+            super.addDependency(blockerId, blockedId);
+            markDependencyChanged(blockerId, blockedId, true);
+            saveChange(Journal.ADD_DEPENDENCY, blockerId + "," + blockedId);
+        });
+    }
+
+    @Override
+    public void removeDependency(long blockerId, long blockedId) {
+        locked(() -> {
+            super.removeDependency(blockerId, blockedId);
+            markDependencyChanged(blockerId, blockedId, false);
+            saveChange(Journal.REMOVE_DEPENDENCY, blockerId + "," + blockedId);
+        });
+    }
+
     @Override
     public Task createNewTask(Task task) {
-        super.createNewTask(task);
-        save();
-        return task;
+        return locked(() -> {
+            super.createNewTask(task);
+            markChanged(task.getId());
+            saveChange(Journal.PUT, toString(task));
+            return task;
+        });
     }
 
     @Override
     public Epic createNewEpic(Epic epic) {
-        super.createNewEpic(epic);
-        save();
-        return epic;
+        return locked(() -> {
+            super.createNewEpic(epic);
+            markChanged(epic.getId());
+            saveChange(Journal.PUT, toString(epic));
+            return epic;
+        });
     }
 
     @Override
     public Subtask createNewSubtask(Subtask subtask) {
-        super.createNewSubtask(subtask);
-        save();
-        return subtask;
+        return locked(() -> {
+            super.createNewSubtask(subtask);
+            markChanged(subtask.getId());
+            saveChange(Journal.PUT, toString(subtask));
+            return subtask;
+        });
+    }
+
+    @Override
+    public List<Task> createAll(List<? extends Task> newTasks) {
+        return locked(() -> {
+            List<Task> createdTasks = super.createAll(newTasks);
+            markChanged(createdTasks);
+            saveChange(Journal.CREATE_ALL, createdTasks);
+            return createdTasks;
+        });
     }
 
     @Override
     public void updateTask(Task updatedTask) {
-        super.updateTask(updatedTask);
-        save();
+        locked(() -> {
+            super.updateTask(updatedTask);
+            markChanged(updatedTask.getId());
+            saveChange(Journal.PUT, toString(updatedTask));
+        });
     }
 
     @Override
     public void updateEpic(Epic updatedEpic) {
-        super.updateEpic(updatedEpic);
-        save();
+        locked(() -> {
+            super.updateEpic(updatedEpic);
+            markChanged(updatedEpic.getId());
+            saveChange(Journal.PUT, toString(updatedEpic));
+        });
     }
 
     @Override
     public void updateSubtask(Subtask updatedSubtask) {
-        super.updateSubtask(updatedSubtask);
-        save();
+        locked(() -> {
+            super.updateSubtask(updatedSubtask);
+            markChanged(updatedSubtask.getId());
+            saveChange(Journal.PUT, toString(updatedSubtask));
+        });
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> updatedTasks) {
+        locked(() -> {
+            super.updateAll(updatedTasks);
+            markChanged(updatedTasks);
+            saveChange(Journal.UPDATE_ALL, updatedTasks);
+        });
     }
 
     @Override
-    public void removeTask(Integer id) {
-        super.removeTask(id);
-        save();
+    public void removeTask(long id) {
+        locked(() -> {
+            super.removeTask(id);
+            markChanged(id);
+            saveChange(Journal.REMOVE, TaskType.TASK + "," + id);
+        });
     }
 
     @Override
-    public void removeEpic(Integer id) {
-        super.removeEpic(id);
-        save();
+    public void removeEpic(long id) {
+        locked(() -> {
+            List<Long> subtaskIds = findStoredTask(id) instanceof Epic epic ? epic.getSubtasksId() : List.of();
+            super.removeEpic(id);
+            markChanged(id);
+            subtaskIds.forEach(this::markChanged);
+            saveChange(Journal.REMOVE, TaskType.EPIC + "," + id);
+        });
     }
 
     @Override
-    public void removeSubtask(Integer id) {
-        super.removeSubtask(id);
-        save();
+    public void removeSubtask(long id) {
+        locked(() -> {
+            super.removeSubtask(id);
+            markChanged(id);
+            saveChange(Journal.REMOVE, TaskType.SUBTASK + "," + id);
+        });
     }
 
     @Override
     public void clearAllTasks() {
-        super.clearAllTasks();
-        save();
+        locked(() -> {
+            if (options.isDeltaSnapshots()) {
+                markChanged(getAllTasks());
+            }
+            super.clearAllTasks();
+            saveChange(Journal.CLEAR, TaskType.TASK.name());
+        });
     }
 
     @Override
     public void clearAllEpics() {
-        super.clearAllEpics();
-        save();
+        locked(() -> {
+            if (options.isDeltaSnapshots()) {
+                markChanged(getAllEpics());
+                markChanged(getAllSubtasks());
+            }
+            super.clearAllEpics();
+            saveChange(Journal.CLEAR, TaskType.EPIC.name());
+        });
     }
 
     @Override
     public void clearAllSubtasks() {
-        super.clearAllSubtasks();
-        save();
+        locked(() -> {
+            if (options.isDeltaSnapshots()) {
+                markChanged(getAllSubtasks());
+            }
+            super.clearAllSubtasks();
+            saveChange(Journal.CLEAR, TaskType.SUBTASK.name());
+        });
     }
 
     public static void main(String[] args) {
@@ -242,6 +1225,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
         try {
             Files.delete(path);
+            Files.deleteIfExists(getIdFilePath(path));
         } catch (IOException ex) {
             System.out.println(ex.getMessage());
         }
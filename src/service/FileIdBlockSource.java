@@ -0,0 +1,55 @@
+package service;
+
+import exceptions.ManagerLoadFileException;
+import exceptions.ManagerSaveException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Durable id block source: the last reserved id is kept in a small file and written once per block,
+ * so ids stay unique across restarts without scanning the task file for the maximum id,
+ * and ids of removed tasks are never reused.
+ */
+public class FileIdBlockSource implements IdBlockSource {
+    private final Path path;
+    private long lastReservedId;
+
+    public FileIdBlockSource(Path path) {
+        this.path = path;
+        try {
+            if (Files.exists(path)) {
+                lastReservedId = Long.parseLong(Files.readString(path, StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException ex) {
+            throw new ManagerLoadFileException("Ошибка чтения файла " + path.getFileName(), ex);
+        }
+    }
+
+    @Override
+    public synchronized long reserveBlock(int size) {
+        long firstId = lastReservedId + 1;
+        write(lastReservedId + size);
+        lastReservedId += size;
+        return firstId;
+    }
+
+    // id из загруженного файла уже сохранены вместе с задачами, файл перезапишется при следующем блоке
+    @Override
+    public synchronized void skipTo(long usedId) {
+        lastReservedId = Math.max(lastReservedId, usedId);
+    }
+
+    private void write(long reservedId) {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.writeString(tempPath, String.valueOf(reservedId), StandardCharsets.UTF_8);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось сохранить счётчик id в файл " + path.getFileName(), ex);
+        }
+    }
+}
@@ -2,11 +2,18 @@ package service;
 
 import model.*;
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface HistoryManager {
     void addTask(Task task);
 
-    void remove(int id);
+    void remove(long id);
+
+    /**
+     * Removes all tasks matching the filter in one pass over the history,
+     * the order of the other tasks is kept.
+     */
+    void removeIf(Predicate<? super Task> filter);
 
     List<Task> getHistory();
 }
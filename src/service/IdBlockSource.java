@@ -0,0 +1,16 @@
+package service;
+
+/**
+ * Shared source of id ranges for {@link BlockIdGenerator}.
+ */
+public interface IdBlockSource {
+    /**
+     * Reserves {@code size} consecutive ids and returns the first of them.
+     */
+    long reserveBlock(int size);
+
+    /**
+     * Marks all ids up to the given one as used, the next block starts after it.
+     */
+    void skipTo(long usedId);
+}
@@ -0,0 +1,16 @@
+package service;
+
+/**
+ * Source of unique 64-bit task ids.
+ */
+public interface IdGenerator {
+    /**
+     * Returns an id that was never returned before.
+     */
+    long nextId();
+
+    /**
+     * Marks all ids up to the given one as used, e.g. ids of the tasks loaded from a file.
+     */
+    void skipTo(long usedId);
+}
@@ -3,16 +3,15 @@ package service;
 import model.Task;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.Predicate;
 
 public class InMemoryHistoryManager implements HistoryManager {
-    private final Map<Integer, Node> nodes;
+    private final LongObjectHashMap<Node> nodes;
     private Node head;
     private Node tail;
 
     public InMemoryHistoryManager() {
-        nodes = new HashMap<>();
+        nodes = new LongObjectHashMap<>();
     }
 
     @Override
@@ -20,7 +19,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (task == null) {
             return;
         }
-        int taskId = task.getId();
+        long taskId = task.getId();
         if (nodes.containsKey(taskId)) {
             remove(taskId);
         }
@@ -28,16 +27,32 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     @Override
-    public void remove(int id) {
+    public void remove(long id) {
         Node node = nodes.get(id);
         removeNode(node);
     }
 
+    @Override
+    public void removeIf(Predicate<? super Task> filter) {
+        Node curNode = head;
+        while (curNode != null) {
+            Node next = curNode.next;
+            if (filter.test(curNode.data)) {
+                removeNode(curNode);
+            }
+            curNode = next;
+        }
+    }
+
     @Override
     public List<Task> getHistory() {
         return List.copyOf(getTasks());
     }
 
+    int size() {
+        return nodes.size();
+    }
+
     private void linkLast(Task task) {
         Node oldTail = tail;
         Node newTail = new Node(oldTail, null, task);
@@ -2,68 +2,118 @@ package service;
 
 import model.*;
 import exceptions.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final HashMap<Integer, Task> tasks;
-    private final HashMap<Integer, Epic> epics;
-    private final HashMap<Integer, Subtask> subtasks;
+    private final LongObjectHashMap<Task> tasks;
+    private final LongObjectHashMap<Epic> epics;
+    private final LongObjectHashMap<Subtask> subtasks;
+    // индексы задач и подзадач по статусу, обновляются при каждом изменении
+    private final EnumMap<TaskStatus, LongObjectHashMap<Task>> tasksByStatus;
+    private final EnumMap<TaskStatus, LongObjectHashMap<Subtask>> subtasksByStatus;
     private final HistoryManager historyManager;
     private final TreeSet<Task> prioritizedTaskSet;
-    protected int idCounter;
+    // задачи с заданными startTime и duration, их интервалы попарно не пересекаются
+    private final TreeSet<Task> timedTaskSet;
+    // дни, которые пересекают задачи и подзадачи, с задачами дня в порядке startTime
+    private final TreeMap<LocalDate, TreeSet<Task>> calendar;
+    // правила повторяющихся задач, повторения вычисляются только для запрошенного периода
+    private final LongObjectHashMap<RecurringTask> recurringTasks;
+    private final DependencyGraph dependencyGraph;
+    private final IdGenerator idGenerator;
 
     public InMemoryTaskManager() {
-        tasks = new HashMap<>();
-        epics = new HashMap<>();
-        subtasks = new HashMap<>();
-        historyManager = Managers.getDefaultHistory();
+        this(new AtomicIdGenerator());
+    }
+
+    /**
+     * Creates a manager with the given id generator, e.g. a {@link BlockIdGenerator}
+     * over a source shared with other managers.
+     */
+    public InMemoryTaskManager(IdGenerator idGenerator) {
+        this(Managers.getDefaultHistory(), idGenerator);
+    }
+
+    protected InMemoryTaskManager(HistoryManager historyManager, IdGenerator idGenerator) {
+        tasks = new LongObjectHashMap<>();
+        epics = new LongObjectHashMap<>();
+        subtasks = new LongObjectHashMap<>();
+        tasksByStatus = new EnumMap<>(TaskStatus.class);
+        subtasksByStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            tasksByStatus.put(status, new LongObjectHashMap<>());
+            subtasksByStatus.put(status, new LongObjectHashMap<>());
+        }
+        this.historyManager = historyManager;
         prioritizedTaskSet = new TreeSet<>(Comparator.comparing(Task::getStartTime));
-        idCounter = 1;
+        timedTaskSet = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+        calendar = new TreeMap<>();
+        recurringTasks = new LongObjectHashMap<>();
+        dependencyGraph = new DependencyGraph();
+        this.idGenerator = idGenerator;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return tasks.values();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return epics.values();
     }
 
     @Override
-    public ArrayList<Task> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+    public List<Subtask> getAllSubtasks() {
+        return subtasks.values();
     }
 
     @Override
-    public ArrayList<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return tasksByStatus.get(status).values();
     }
 
     @Override
-    public ArrayList<Subtask> getAllSubtasks() {
-        return new ArrayList<>(subtasks.values());
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return subtasksByStatus.get(status).values();
     }
 
     @Override
     public void clearAllTasks() {
-        tasks.keySet().forEach(historyManager::remove);
-        tasks.values().forEach(prioritizedTaskSet::remove);
+        historyManager.removeIf(task -> task.getType() == TaskType.TASK);
+        removeFromPrioritizedTaskSets(TaskType.TASK);
+        dependencyGraph.removeIf(tasks::containsKey);
         tasks.clear();
+        tasksByStatus.values().forEach(LongObjectHashMap::clear);
     }
 
     @Override
     public void clearAllEpics() {
-        Stream.concat(epics.keySet().stream(), subtasks.keySet().stream()).forEach(historyManager::remove);
-        subtasks.values().forEach(prioritizedTaskSet::remove);
+        historyManager.removeIf(task -> task.getType() != TaskType.TASK);
+        removeFromPrioritizedTaskSets(TaskType.SUBTASK);
+        dependencyGraph.removeIf(subtasks::containsKey);
         epics.clear();
         subtasks.clear();
+        subtasksByStatus.values().forEach(LongObjectHashMap::clear);
     }
 
     @Override
     public void clearAllSubtasks() {
-        subtasks.keySet().forEach(historyManager::remove);
-        subtasks.values().forEach(prioritizedTaskSet::remove);
-        subtasks.values().forEach(subtask -> this.getEpic(subtask.getEpicId()).removeSubtask(subtask));
+        historyManager.removeIf(task -> task.getType() == TaskType.SUBTASK);
+        removeFromPrioritizedTaskSets(TaskType.SUBTASK);
+        dependencyGraph.removeIf(subtasks::containsKey);
+        epics.forEachValue(Epic::clearSubtasks);
         subtasks.clear();
-        epics.keySet().forEach(this::checkEpicStatus);
+        subtasksByStatus.values().forEach(LongObjectHashMap::clear);
     }
 
     @Override
-    public Task getTask(Integer id) {
+    public Task getTask(long id) {
         Task task = tasks.get(id);
         if (task == null) {
             throw new TaskNotFoundException("Задача с id = " + id + " не найдена.");
@@ -73,7 +123,7 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public Epic getEpic(Integer id) {
+    public Epic getEpic(long id) {
         Epic epic = epics.get(id);
         if (epic == null) {
             throw new TaskNotFoundException("Эпик с id = " + id + " не найден.");
@@ -83,7 +133,7 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public Subtask getSubtask(Integer id) {
+    public Subtask getSubtask(long id) {
         Subtask subtask = subtasks.get(id);
         if (subtask == null) {
             throw new TaskNotFoundException("Подзадача с id = " + id + " не найдена.");
@@ -97,12 +147,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (hasIntersect(task)) {
             throw new TaskHasIntersectException("Задача пересекается по времени с другой задачей");
         }
-        task.setId(idCounter);
-        tasks.put(idCounter, task);
-        updateIdCounter();
-        if (task.getStartTime() != null) {
-            prioritizedTaskSet.add(task);
-        }
+        putNewTask(task);
         return task;
     }
 
@@ -112,16 +157,15 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epic.getSubtasksId().isEmpty()) {
             throw new ManagerCreateTaskException("Эпик не должен содержать подзадачи");
         }
-        epic.setId(idCounter);
-        epics.put(idCounter, epic);
-        updateIdCounter();
+        epic.setId(idGenerator.nextId());
+        epics.put(epic.getId(), epic);
         return epic;
     }
 
     // для подзадачи должен быть задан эпик
     @Override
     public Subtask createNewSubtask(Subtask subtask) {
-        int epicId = subtask.getEpicId();
+        long epicId = subtask.getEpicId();
         Epic epic = epics.get(epicId);
         if (epic == null) {
             throw new ManagerCreateTaskException("Эпик подзадачи не существует в менеджере");
@@ -129,23 +173,43 @@ public class InMemoryTaskManager implements TaskManager {
         if (hasIntersect(subtask)) {
             throw new TaskHasIntersectException("Подзадача пересекается по времени с другой задачей");
         }
-        subtask.setId(idCounter);
-        subtasks.put(idCounter, subtask);
-        updateIdCounter();
-        epic.addSubtask(subtask);
-        checkEpicStatus(epic.getId());
-        if (subtask.getStartTime() != null) {
-            prioritizedTaskSet.add(subtask);
-        }
+        putNewSubtask(subtask, epic);
         return subtask;
     }
 
+    /**
+     * Creates tasks and subtasks in one operation. The whole batch is checked for overlaps
+     * with the existing tasks and between its own tasks before any change,
+     * so either all tasks are created or none.
+     */
+    @Override
+    public List<Task> createAll(List<? extends Task> newTasks) {
+        List<Epic> subtasksEpics = new ArrayList<>(newTasks.size());
+        for (Task task : newTasks) {
+            if (task instanceof Epic) {
+                throw new ManagerCreateTaskException("Эпики создаются по одному методом createNewEpic");
+            }
+            subtasksEpics.add(task instanceof Subtask subtask ? getEpicOfSubtask(subtask) : null);
+        }
+        checkBatchIntersect(newTasks);
+        for (int i = 0; i < newTasks.size(); i++) {
+            Task task = newTasks.get(i);
+            if (task instanceof Subtask subtask) {
+                putNewSubtask(subtask, subtasksEpics.get(i));
+            } else {
+                putNewTask(task);
+            }
+        }
+        return List.copyOf(newTasks);
+    }
+
     @Override
     public void updateTask(Task updatedTask) {
-        Integer id = updatedTask.getId();
+        long id = updatedTask.getId();
         if (tasks.containsKey(id)) {
             if (updatePrioritizedTaskSet(updatedTask)) {
                 tasks.put(id, updatedTask);
+                updateStatusIndex(tasksByStatus, updatedTask);
             } else {
                 throw new TaskHasIntersectException("Задача пересекается во времени с существующими задачами");
             }
@@ -156,11 +220,12 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void updateSubtask(Subtask updatedSubtask) {
-        Integer id = updatedSubtask.getId();
+        long id = updatedSubtask.getId();
         if (subtasks.containsKey(id)) {
+            Subtask oldSubtask = subtasks.get(id);
+            Epic newEpic = getEpicOfSubtask(updatedSubtask);
             if (updatePrioritizedTaskSet(updatedSubtask)) {
-                subtasks.put(id, updatedSubtask);
-                checkEpicStatus(updatedSubtask.getEpicId());
+                putUpdatedSubtask(oldSubtask, updatedSubtask, newEpic);
             } else {
                 throw new TaskHasIntersectException("Подзадача пересекается во времени с существующими задачами");
             }
@@ -171,7 +236,7 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void updateEpic(Epic updatedEpic) {
-        Integer id = updatedEpic.getId();
+        long id = updatedEpic.getId();
         if (epics.containsKey(id)) {
             Epic epic = epics.get(id);
             // обновляем только поля name и description
@@ -183,32 +248,88 @@ public class InMemoryTaskManager implements TaskManager {
         }
     }
 
+    /**
+     * Updates tasks, subtasks and epics in one operation. The new times are checked together,
+     * so tasks of the batch may take each other's time. Either all tasks are updated or none.
+     */
     @Override
-    public void removeTask(Integer id) {
+    public void updateAll(List<? extends Task> updatedTasks) {
+        Set<Long> batchIds = new HashSet<>();
+        List<Task> oldTasks = new ArrayList<>(updatedTasks.size());
+        List<Epic> subtasksEpics = new ArrayList<>(updatedTasks.size());
+        for (Task updatedTask : updatedTasks) {
+            long id = updatedTask.getId();
+            if (!batchIds.add(id)) {
+                throw new IllegalArgumentException("Задача с id = " + id + " указана в пакете несколько раз");
+            }
+            Task oldTask = switch (updatedTask.getType()) {
+                case TASK -> tasks.get(id);
+                case SUBTASK -> subtasks.get(id);
+                case EPIC -> epics.get(id);
+            };
+            if (oldTask == null) {
+                throw new TaskNotFoundException("Задача с id = " + id + " не найдена.");
+            }
+            oldTasks.add(oldTask);
+            subtasksEpics.add(updatedTask instanceof Subtask subtask ? getEpicOfSubtask(subtask) : null);
+        }
+        // время эпика вычисляется по подзадачам, эпики не стоят в списке по приоритету и не проверяются на пересечения
+        List<Task> oldTimedTasks = oldTasks.stream().filter(task -> !(task instanceof Epic)).toList();
+        oldTimedTasks.forEach(this::removeFromPrioritizedTaskSet);
+        try {
+            checkBatchIntersect(updatedTasks.stream().filter(task -> !(task instanceof Epic)).toList());
+        } catch (RuntimeException exception) {
+            oldTimedTasks.forEach(this::addToPrioritizedTaskSet);
+            throw exception;
+        }
+        for (int i = 0; i < updatedTasks.size(); i++) {
+            Task updatedTask = updatedTasks.get(i);
+            switch (updatedTask.getType()) {
+                case TASK -> {
+                    tasks.put(updatedTask.getId(), updatedTask);
+                    updateStatusIndex(tasksByStatus, updatedTask);
+                }
+                case SUBTASK -> putUpdatedSubtask((Subtask) oldTasks.get(i), (Subtask) updatedTask,
+                        subtasksEpics.get(i));
+                case EPIC -> {
+                    oldTasks.get(i).setName(updatedTask.getName());
+                    oldTasks.get(i).setDescription(updatedTask.getDescription());
+                    continue;
+                }
+            }
+            addToPrioritizedTaskSet(updatedTask);
+        }
+    }
+
+    @Override
+    public void removeTask(long id) {
         if (!tasks.containsKey(id)) {
             throw new TaskNotFoundException("Задача с id = " + id + " не найдена.");
         }
         removeFromPrioritizedTaskSet(tasks.get(id));
         historyManager.remove(id);
         tasks.remove(id);
+        removeFromStatusIndex(tasksByStatus, id);
+        dependencyGraph.removeNode(id);
     }
 
     @Override
-    public void removeSubtask(Integer id) {
+    public void removeSubtask(long id) {
         if (!subtasks.containsKey(id)) {
             throw new TaskNotFoundException("Подзадача с id = " + id + " не найдена.");
         }
         Subtask subtask = subtasks.get(id);
         Epic epic = epics.get(subtask.getEpicId());
         epic.removeSubtask(subtask);
-        checkEpicStatus(epic.getId());
         removeFromPrioritizedTaskSet(subtasks.get(id));
         historyManager.remove(id);
         subtasks.remove(id);
+        removeFromStatusIndex(subtasksByStatus, id);
+        dependencyGraph.removeNode(id);
     }
 
     @Override
-    public void removeEpic(Integer id) {
+    public void removeEpic(long id) {
         if (!epics.containsKey(id)) {
             throw new TaskNotFoundException("Эпик с id = " + id + " не найден.");
         }
@@ -217,13 +338,55 @@ public class InMemoryTaskManager implements TaskManager {
             historyManager.remove(subtaskId);
             removeFromPrioritizedTaskSet(subtasks.get(subtaskId));
             subtasks.remove(subtaskId);
+            removeFromStatusIndex(subtasksByStatus, subtaskId);
+            dependencyGraph.removeNode(subtaskId);
         });
         historyManager.remove(epic.getId());
         epics.remove(id);
     }
 
     @Override
-    public List<Subtask> getSubtasksOfEpic(Integer epicId) {
+    public void addDependency(long blockerId, long blockedId) {
+        getLinkedTask(blockerId);
+        getLinkedTask(blockedId);
+        dependencyGraph.addEdge(blockerId, blockedId);
+    }
+
+    @Override
+    public void removeDependency(long blockerId, long blockedId) {
+        if (!dependencyGraph.removeEdge(blockerId, blockedId)) {
+            throw new TaskNotFoundException("Зависимость задачи id = " + blockedId
+                    + " от задачи id = " + blockerId + " не найдена.");
+        }
+    }
+
+    @Override
+    public List<Dependency> getDependencies() {
+        return dependencyGraph.edges();
+    }
+
+    @Override
+    public List<Task> getBlockers(long id) {
+        getLinkedTask(id);
+        return dependencyGraph.predecessors(id).stream()
+                .map(this::getLinkedTask)
+                .toList();
+    }
+
+    @Override
+    public List<Task> getTopologicalOrder() {
+        return dependencyGraph.topologicalOrder().stream()
+                .map(this::getLinkedTask)
+                .toList();
+    }
+
+    @Override
+    public CriticalPath getCriticalPath() {
+        return dependencyGraph.criticalPath(this::getLinkedTask);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksOfEpic(long epicId) {
         if (!epics.containsKey(epicId)) {
             throw new TaskNotFoundException("Эпик с id = " + epicId + " не найден.");
         }
@@ -232,28 +395,196 @@ public class InMemoryTaskManager implements TaskManager {
                 .toList();
     }
 
-    private void updateIdCounter() {
-        idCounter++;
+    /**
+     * Adds a task, an epic or a subtask with the already assigned id, e.g. loaded from a file.
+     * The task is checked for overlaps as a new one, the id is marked as used in the id generator.
+     */
+    protected void restoreTask(Task task) {
+        if (hasStoredId(task.getId())) {
+            throw new ManagerCreateTaskException("Задача с id = " + task.getId() + " уже существует");
+        }
+        if (task.getType() != TaskType.EPIC && hasIntersect(task)) {
+            throw new TaskHasIntersectException("Задача пересекается по времени с другой задачей");
+        }
+        idGenerator.skipTo(task.getId());
+        switch (task.getType()) {
+            case TASK -> putTask(task);
+            case SUBTASK -> putSubtask((Subtask) task, getEpicOfSubtask((Subtask) task));
+            case EPIC -> epics.put(task.getId(), (Epic) task);
+        }
     }
 
-    private void checkEpicStatus(Integer id) {
-        Epic epic = epics.get(id);
-        if (epic == null) return;
-        List<Integer> subtasksId = epic.getSubtasksId();
-        Map<TaskStatus, List<Subtask>> groupedSubtasks = subtasksId.stream().map(subtasks::get)
-                .collect(Collectors.groupingBy(Task::getStatus));
-        int subtasksNewStatusCount = groupedSubtasks.getOrDefault(TaskStatus.NEW, Collections.emptyList()).size();
-        int subtasksDoneStatusCount = groupedSubtasks.getOrDefault(TaskStatus.DONE, Collections.emptyList()).size();
-
-        if (epic.getSubtasksId().isEmpty() || subtasksNewStatusCount == epic.getSubtasksId().size()) {
-            epic.setStatus(TaskStatus.NEW);
-        } else if (subtasksDoneStatusCount == epic.getSubtasksId().size()) {
-            epic.setStatus(TaskStatus.DONE);
+    /**
+     * Adds tasks, epics and subtasks with assigned ids from trusted data, e.g. a snapshot written by the manager.
+     * Unlike {@link #restoreTask} the tasks are not checked one by one against the already added ones:
+     * the stores, the time indexes and the epics are filled directly, O(n log n) in total.
+     * With {@code verify} the result is checked once afterwards in O(n): ids are unique and one-off tasks
+     * do not overlap. Recurring tasks are few, with {@code verify} they are checked like new tasks.
+     * The id generator is moved once to the largest id.
+     * @throws ManagerCreateTaskException if the epic of a subtask is missing or, with {@code verify}, an id repeats
+     * @throws TaskHasIntersectException if, with {@code verify}, tasks overlap
+     */
+    protected void restoreAll(Collection<? extends Task> restoredTasks, boolean verify) {
+        List<Task> oneOffTasks = new ArrayList<>(restoredTasks.size());
+        List<RecurringTask> rules = new ArrayList<>();
+        int expectedStored = tasks.size() + epics.size() + subtasks.size();
+        int expectedTimed = prioritizedTaskSet.size();
+        long maxId = 0;
+        // эпики добавляются первыми, подзадачи сразу учитываются в их статусе и времени
+        for (Task task : restoredTasks) {
+            maxId = Math.max(maxId, task.getId());
+            if (task instanceof Epic epic) {
+                epics.put(epic.getId(), epic);
+                expectedStored++;
+            } else if (task instanceof RecurringTask rule) {
+                rules.add(rule);
+            } else {
+                oneOffTasks.add(task);
+            }
+        }
+        for (Task task : oneOffTasks) {
+            if (task instanceof Subtask subtask) {
+                putSubtask(subtask, getEpicOfSubtask(subtask));
+            } else {
+                putTask(task);
+            }
+            expectedStored++;
+            if (task.getStartTime() != null) {
+                expectedTimed++;
+            }
+        }
+        if (verify) {
+            checkRestoredTasks(expectedStored, expectedTimed);
+        }
+        for (RecurringTask rule : rules) {
+            if (verify) {
+                restoreTask(rule);
+            } else {
+                putTask(rule);
+            }
+        }
+        idGenerator.skipTo(maxId);
+    }
+
+    // хранилища и индексы заполнены без проверок: повторный id или время начала
+    // перезаписали бы запись, пересечение интервалов видно у соседних задач шкалы
+    private void checkRestoredTasks(int expectedStored, int expectedTimed) {
+        if (tasks.size() + epics.size() + subtasks.size() != expectedStored) {
+            throw new ManagerCreateTaskException("Загруженные задачи содержат повторяющиеся id");
+        }
+        tasks.forEachValue(task -> {
+            if (epics.containsKey(task.getId()) || subtasks.containsKey(task.getId())) {
+                throw new ManagerCreateTaskException("Задача с id = " + task.getId() + " уже существует");
+            }
+        });
+        subtasks.forEachValue(subtask -> {
+            if (epics.containsKey(subtask.getId())) {
+                throw new ManagerCreateTaskException("Задача с id = " + subtask.getId() + " уже существует");
+            }
+        });
+        if (prioritizedTaskSet.size() != expectedTimed) {
+            throw new TaskHasIntersectException("Загруженные задачи начинаются в одно время");
+        }
+        Task previous = null;
+        for (Task task : timedTaskSet) {
+            if (previous != null && previous.getEndTime().isAfter(task.getStartTime())) {
+                throw new TaskHasIntersectException("Задача id = " + task.getId()
+                        + " пересекается по времени с задачей id = " + previous.getId());
+            }
+            previous = task;
+        }
+    }
+
+    protected boolean hasStoredId(long id) {
+        return tasks.containsKey(id) || epics.containsKey(id) || subtasks.containsKey(id);
+    }
+
+    /**
+     * Returns the task, the epic or the subtask with the id, null if there is none. The history is not changed.
+     */
+    protected Task findStoredTask(long id) {
+        if (tasks.containsKey(id)) {
+            return tasks.get(id);
+        }
+        return epics.containsKey(id) ? epics.get(id) : subtasks.get(id);
+    }
+
+    protected int getStoredCount() {
+        return tasks.size() + epics.size() + subtasks.size();
+    }
+
+    // в зависимостях участвуют задачи и подзадачи, время эпика определяется его подзадачами
+    private Task getLinkedTask(long id) {
+        Task task = tasks.containsKey(id) ? tasks.get(id) : subtasks.get(id);
+        if (task != null) {
+            return task;
+        }
+        if (epics.containsKey(id)) {
+            throw new ManagerCreateTaskException("Эпик не может участвовать в зависимостях, id = " + id);
+        }
+        throw new TaskNotFoundException("Задача с id = " + id + " не найдена.");
+    }
+
+    private Epic getEpicOfSubtask(Subtask subtask) {
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic == null) {
+            throw new ManagerCreateTaskException("Эпик подзадачи не существует в менеджере");
+        }
+        return epic;
+    }
+
+    private void putNewTask(Task task) {
+        task.setId(idGenerator.nextId());
+        putTask(task);
+    }
+
+    private void putTask(Task task) {
+        tasks.put(task.getId(), task);
+        addToStatusIndex(tasksByStatus, task);
+        addToPrioritizedTaskSet(task);
+    }
+
+    private void putNewSubtask(Subtask subtask, Epic epic) {
+        subtask.setId(idGenerator.nextId());
+        putSubtask(subtask, epic);
+    }
+
+    private void putSubtask(Subtask subtask, Epic epic) {
+        subtasks.put(subtask.getId(), subtask);
+        addToStatusIndex(subtasksByStatus, subtask);
+        epic.addSubtask(subtask);
+        addToPrioritizedTaskSet(subtask);
+    }
+
+    private void putUpdatedSubtask(Subtask oldSubtask, Subtask updatedSubtask, Epic newEpic) {
+        subtasks.put(updatedSubtask.getId(), updatedSubtask);
+        updateStatusIndex(subtasksByStatus, updatedSubtask);
+        Epic oldEpic = epics.get(oldSubtask.getEpicId());
+        if (oldEpic == newEpic) {
+            newEpic.replaceSubtask(oldSubtask, updatedSubtask);
         } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+            oldEpic.removeSubtask(oldSubtask);
+            newEpic.addSubtask(updatedSubtask);
         }
     }
 
+    private static <T extends Task> void addToStatusIndex(EnumMap<TaskStatus, LongObjectHashMap<T>> index, T task) {
+        if (task.getStatus() != null) {
+            index.get(task.getStatus()).put(task.getId(), task);
+        }
+    }
+
+    // старый статус не берём из задачи: обновлённая задача может быть тем же объектом с изменённым статусом
+    private static <T extends Task> void removeFromStatusIndex(EnumMap<TaskStatus, LongObjectHashMap<T>> index,
+                                                               long id) {
+        index.values().forEach(tasksOfStatus -> tasksOfStatus.remove(id));
+    }
+
+    private static <T extends Task> void updateStatusIndex(EnumMap<TaskStatus, LongObjectHashMap<T>> index, T task) {
+        removeFromStatusIndex(index, task.getId());
+        addToStatusIndex(index, task);
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
@@ -264,33 +595,392 @@ public class InMemoryTaskManager implements TaskManager {
         return Collections.unmodifiableSortedSet(prioritizedTaskSet);
     }
 
-    private boolean updatePrioritizedTaskSet(Task updatedTask) {
-        int id = updatedTask.getId();
-        Task taskForRemove = tasks.getOrDefault(id, subtasks.get(id));
-        if (taskForRemove != null && taskForRemove.getStartTime() != null) {
-            prioritizedTaskSet.remove(taskForRemove);
-            if (hasIntersect(updatedTask)) {
-                prioritizedTaskSet.add(taskForRemove);
-                return false;
+    /**
+     * Returns a view of the tasks starting in [from, to), a null bound means no limit on that side.
+     */
+    @Override
+    public SortedSet<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        if (recurringTasks.isEmpty()) {
+            return Collections.unmodifiableSortedSet(prioritizedTasksView(from, to));
+        }
+        checkBoundedPeriod(to, Integer.MAX_VALUE);
+        TreeSet<Task> tasksOfPeriod = new TreeSet<>(prioritizedTaskSet.comparator());
+        timeline(from, to).forEach(tasksOfPeriod::add);
+        return Collections.unmodifiableSortedSet(tasksOfPeriod);
+    }
+
+    /**
+     * Without recurring tasks the view of the timeline is cut after {@code limit} tasks.
+     * Otherwise the view is merged with the occurrences of the rules, which are generated lazily,
+     * so only the first {@code limit} occurrences are created.
+     */
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        if (recurringTasks.isEmpty()) {
+            return prioritizedTasksView(from, to).stream()
+                    .limit(limit)
+                    .toList();
+        }
+        checkBoundedPeriod(to, limit);
+        return timeline(from, to)
+                .limit(limit)
+                .toList();
+    }
+
+    // повторения правила без окончания нельзя перечислить до конца
+    private void checkBoundedPeriod(LocalDateTime to, int limit) {
+        if (to != null || limit != Integer.MAX_VALUE) {
+            return;
+        }
+        for (RecurringTask rule : recurringTasks.values()) {
+            if (rule.isUnbounded()) {
+                throw new IllegalArgumentException("Повторяющаяся задача id = " + rule.getId()
+                        + " не ограничена по времени, нужно указать конец периода или limit");
+            }
+        }
+    }
+
+    // разовые задачи периода вместе с повторениями правил в порядке времени начала
+    private Stream<Task> timeline(LocalDateTime from, LocalDateTime to) {
+        List<Stream<Task>> sources = new ArrayList<>();
+        sources.add(prioritizedTasksView(from, to).stream().filter(task -> !(task instanceof RecurringTask)));
+        recurringTasks.forEachValue(rule -> sources.add(rule.occurrencesBetween(from, to)));
+        return mergeByStartTime(sources);
+    }
+
+    /**
+     * Lazily merges sequences ordered by the start time, O(log k) per task for k sequences.
+     */
+    private static Stream<Task> mergeByStartTime(List<Stream<Task>> sources) {
+        PriorityQueue<Map.Entry<Task, Iterator<Task>>> heads = new PriorityQueue<>(
+                Comparator.comparing((Map.Entry<Task, Iterator<Task>> head) -> head.getKey().getStartTime()));
+        for (Stream<Task> source : sources) {
+            Iterator<Task> iterator = source.iterator();
+            if (iterator.hasNext()) {
+                heads.add(Map.entry(iterator.next(), iterator));
+            }
+        }
+        Iterator<Task> merged = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Task next() {
+                Map.Entry<Task, Iterator<Task>> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.getValue().hasNext()) {
+                    heads.add(Map.entry(head.getValue().next(), head.getValue()));
+                }
+                return head.getKey();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false);
+    }
+
+    private SortedSet<Task> prioritizedTasksView(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null) {
+            if (from.isAfter(to)) {
+                throw new IllegalArgumentException("Начало периода позже его окончания");
+            }
+            return prioritizedTaskSet.subSet(timeProbe(from), timeProbe(to));
+        } else if (from != null) {
+            return prioritizedTaskSet.tailSet(timeProbe(from));
+        } else if (to != null) {
+            return prioritizedTaskSet.headSet(timeProbe(to));
+        }
+        return prioritizedTaskSet;
+    }
+
+    /**
+     * Takes the days of the period from the calendar index with one subMap call, O(log d + days in the period).
+     */
+    @Override
+    public SortedMap<LocalDate, List<Task>> getCalendar(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало периода позже окончания: " + from + " - " + to);
+        }
+        SortedMap<LocalDate, List<Task>> days = new TreeMap<>();
+        NavigableMap<LocalDate, TreeSet<Task>> period = calendar.subMap(from, true, to, true);
+        if (!recurringTasks.isEmpty()) {
+            period = addOccurrencesToDays(period, from, to);
+        }
+        period.forEach((day, tasksOfDay) -> days.put(day, List.copyOf(tasksOfDay)));
+        return days;
+    }
+
+    // повторения правил в индексе не хранятся, они раскладываются по дням только для запрошенного периода
+    private NavigableMap<LocalDate, TreeSet<Task>> addOccurrencesToDays(NavigableMap<LocalDate, TreeSet<Task>> period,
+                                                                        LocalDate from, LocalDate to) {
+        TreeMap<LocalDate, TreeSet<Task>> days = new TreeMap<>();
+        period.forEach((day, tasksOfDay) -> days.put(day, new TreeSet<>(tasksOfDay)));
+        for (RecurringTask rule : recurringTasks.values()) {
+            rule.occurrencesBetween(from.atStartOfDay().minus(rule.getDuration()), to.plusDays(1).atStartOfDay())
+                    .forEach(occurrence -> {
+                        LocalDate firstDay = occurrence.getStartTime().toLocalDate();
+                        LocalDate lastDay = lastDayOf(occurrence);
+                        for (LocalDate day = firstDay.isBefore(from) ? from : firstDay;
+                             !day.isAfter(lastDay) && !day.isAfter(to); day = day.plusDays(1)) {
+                            days.computeIfAbsent(day, key -> new TreeSet<>(prioritizedTaskSet.comparator()))
+                                    .add(occurrence);
+                        }
+                    });
+        }
+        return days;
+    }
+
+    /**
+     * Walks the timeline from {@code after} in O(log n + k), where k is the number of tasks passed
+     * until {@code count} intervals are found. A task without a duration only blocks its start time,
+     * so an interval beginning at such a time is shifted by a minute.
+     */
+    @Override
+    public List<TimeSlot> getFreeTimeSlots(LocalDateTime after, Duration duration, int count) {
+        if (duration.isNegative() || duration.isZero() || count <= 0) {
+            throw new IllegalArgumentException("Длительность и количество интервалов должны быть положительными");
+        }
+        List<TimeSlot> slots = new ArrayList<>();
+        LocalDateTime horizon = freeTimeHorizon(duration);
+        LocalDateTime freeFrom = after;
+        Iterator<Task> timedTasks = timedTasksEndingAfter(after).iterator();
+        while (timedTasks.hasNext()) {
+            if (slots.size() == count || (horizon != null && !freeFrom.isBefore(horizon))) {
+                return slots;
+            }
+            Task next = timedTasks.next();
+            if (next.getStartTime().isAfter(freeFrom)) {
+                TimeSlot slot = new TimeSlot(freeSlotStart(freeFrom), next.getStartTime());
+                if (slot.canFit(duration)) {
+                    slots.add(slot);
+                }
+            }
+            if (next.getEndTime().isAfter(freeFrom)) {
+                freeFrom = next.getEndTime();
+            }
+        }
+        if (slots.size() < count) {
+            slots.add(new TimeSlot(freeSlotStart(freeFrom), null));
+        }
+        return slots;
+    }
+
+    // задачи с длительностью, которые заканчиваются позже after, вместе с повторениями правил
+    private Stream<Task> timedTasksEndingAfter(LocalDateTime after) {
+        Task afterProbe = timeProbe(after);
+        Task previous = timedTaskSet.floor(afterProbe);
+        Stream<Task> oneOffTasks = timedTaskSet.tailSet(afterProbe, false).stream();
+        if (previous != null && previous.getEndTime().isAfter(after)) {
+            oneOffTasks = Stream.concat(Stream.of(previous), oneOffTasks);
+        }
+        if (recurringTasks.isEmpty()) {
+            return oneOffTasks;
+        }
+        List<Stream<Task>> sources = new ArrayList<>();
+        sources.add(oneOffTasks);
+        recurringTasks.forEachValue(rule -> sources.add(rule.occurrencesEndingAfter(after)));
+        return mergeByStartTime(sources);
+    }
+
+    /**
+     * Returns the start of the earliest unbounded rule with gaps shorter than the duration,
+     * no interval after it can fit the task. Null if there is no such rule.
+     */
+    private LocalDateTime freeTimeHorizon(Duration duration) {
+        LocalDateTime horizon = null;
+        for (RecurringTask rule : recurringTasks.values()) {
+            boolean tooShortGaps = rule.getRepeatInterval().minus(rule.getDuration()).compareTo(duration) < 0;
+            if (rule.isUnbounded() && tooShortGaps && (horizon == null || rule.getStartTime().isBefore(horizon))) {
+                horizon = rule.getStartTime();
             }
         }
-        if (updatedTask.getStartTime() != null) {
-            prioritizedTaskSet.add(updatedTask);
+        return horizon;
+    }
+
+    private LocalDateTime freeSlotStart(LocalDateTime time) {
+        while (prioritizedTaskSet.contains(timeProbe(time))) {
+            time = time.plusMinutes(1);
+        }
+        return time;
+    }
+
+    // ключ для поиска по сортированным по времени начала множествам
+    private static Task timeProbe(LocalDateTime time) {
+        return new Task("", "", time, null);
+    }
+
+    private boolean updatePrioritizedTaskSet(Task updatedTask) {
+        long id = updatedTask.getId();
+        Task taskForRemove = tasks.containsKey(id) ? tasks.get(id) : subtasks.get(id);
+        removeFromPrioritizedTaskSet(taskForRemove);
+        if (hasIntersect(updatedTask)) {
+            addToPrioritizedTaskSet(taskForRemove);
+            return false;
         }
+        addToPrioritizedTaskSet(updatedTask);
         return true;
     }
 
+    private void addToPrioritizedTaskSet(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return;
+        }
+        prioritizedTaskSet.add(task);
+        // правило стоит в общем списке под временем первого повторения, в индексы интервалов и дней не попадает
+        if (task instanceof RecurringTask rule) {
+            recurringTasks.put(rule.getId(), rule);
+            return;
+        }
+        if (task.getDuration() != null) {
+            timedTaskSet.add(task);
+        }
+        for (LocalDate day = task.getStartTime().toLocalDate(); !day.isAfter(lastDayOf(task)); day = day.plusDays(1)) {
+            calendar.computeIfAbsent(day, key -> new TreeSet<>(Comparator.comparing(Task::getStartTime))).add(task);
+        }
+    }
+
+    // один проход по сортированным множествам вместо удаления задач по одной
+    private void removeFromPrioritizedTaskSets(TaskType type) {
+        prioritizedTaskSet.removeIf(task -> task.getType() == type);
+        timedTaskSet.removeIf(task -> task.getType() == type);
+        calendar.values().forEach(tasksOfDay -> tasksOfDay.removeIf(task -> task.getType() == type));
+        calendar.values().removeIf(TreeSet::isEmpty);
+        if (type == TaskType.TASK) {
+            recurringTasks.clear();
+        }
+    }
+
     private void removeFromPrioritizedTaskSet(Task task) {
-        if (task.getStartTime() == null) {
+        if (task == null || task.getStartTime() == null) {
             return;
         }
         prioritizedTaskSet.remove(task);
+        if (task instanceof RecurringTask) {
+            recurringTasks.remove(task.getId());
+            return;
+        }
+        timedTaskSet.remove(task);
+        for (LocalDate day = task.getStartTime().toLocalDate(); !day.isAfter(lastDayOf(task)); day = day.plusDays(1)) {
+            TreeSet<Task> tasksOfDay = calendar.get(day);
+            if (tasksOfDay != null && tasksOfDay.remove(task) && tasksOfDay.isEmpty()) {
+                calendar.remove(day);
+            }
+        }
     }
 
+    // задача, которая заканчивается ровно в полночь, следующий день не занимает
+    private static LocalDate lastDayOf(Task task) {
+        LocalDateTime endTime = task.getEndTime();
+        return endTime == null ? task.getStartTime().toLocalDate() : endTime.minusNanos(1).toLocalDate();
+    }
+
+    /**
+     * Checks the batch in O(b log b + b log n): tasks of the batch are sorted by the start time
+     * and compared with each other, then each of them is checked against the timeline.
+     */
+    private void checkBatchIntersect(List<? extends Task> batch) {
+        // правило из JSON проверяется до сравнения с задачами пакета
+        for (Task task : batch) {
+            if (task instanceof RecurringTask rule) {
+                rule.validateRule();
+            }
+        }
+        // повторения правил не видны по соседству в отсортированном пакете, правила сверяются со всеми задачами пакета
+        for (Task rule : batch) {
+            if (rule instanceof RecurringTask) {
+                for (Task task : batch) {
+                    if (task != rule && rule.isIntersect(task)) {
+                        throw new TaskHasIntersectException("Задачи пакета пересекаются по времени между собой");
+                    }
+                }
+            }
+        }
+        List<Task> timedTasks = batch.stream()
+                .filter(task -> task.getStartTime() != null)
+                .sorted(Comparator.comparing(Task::getStartTime))
+                .map(Task.class::cast)
+                .toList();
+        LocalDateTime previousStartTime = null;
+        LocalDateTime latestEndTime = null;
+        for (Task task : timedTasks) {
+            LocalDateTime startTime = task.getStartTime();
+            boolean sameStartTime = previousStartTime != null && previousStartTime.isEqual(startTime);
+            boolean startsBeforeEnd = task.getDuration() != null && latestEndTime != null
+                    && startTime.isBefore(latestEndTime);
+            if (sameStartTime || startsBeforeEnd) {
+                throw new TaskHasIntersectException("Задачи пакета пересекаются по времени между собой");
+            }
+            if (hasIntersect(task)) {
+                throw new TaskHasIntersectException("Задача пакета пересекается по времени с другой задачей");
+            }
+            previousStartTime = startTime;
+            if (task.getEndTime() != null && (latestEndTime == null || task.getEndTime().isAfter(latestEndTime))) {
+                latestEndTime = task.getEndTime();
+            }
+        }
+    }
+
+    /**
+     * Checks the task for a time overlap with the tasks already in the manager in O(log n).
+     * Intervals of tasks with a duration never overlap each other, so only the nearest
+     * of them on both sides of the start time can intersect the checked task.
+     * Tasks without a duration intersect others only on an equal start time.
+     */
     private boolean hasIntersect(Task task) {
         if (task instanceof Epic) {
             throw new IllegalArgumentException("Операция не предусмотрена для класса эпик");
         }
-        return getPrioritizedTasks().stream().anyMatch(other -> other.isIntersect(task));
+        if (task instanceof RecurringTask rule) {
+            rule.validateRule();
+            return hasIntersectRule(rule);
+        }
+        if (task.getStartTime() == null) {
+            return false;
+        }
+        if (prioritizedTaskSet.contains(task)) {
+            return true;
+        }
+        for (RecurringTask rule : recurringTasks.values()) {
+            if (rule.isIntersect(task)) {
+                return true;
+            }
+        }
+        if (task.getDuration() == null) {
+            return false;
+        }
+        Task before = timedTaskSet.lower(task);
+        if (before != null && before.isIntersect(task)) {
+            return true;
+        }
+        Task after = timedTaskSet.higher(task);
+        return after != null && after.isIntersect(task);
+    }
+
+    /**
+     * Checks a rule against other rules and against one-off tasks, that start
+     * during the repetitions of the rule, each task is checked in O(1).
+     */
+    private boolean hasIntersectRule(RecurringTask rule) {
+        if (prioritizedTaskSet.contains(rule)) {
+            return true;
+        }
+        for (RecurringTask other : recurringTasks.values()) {
+            if (rule.isIntersect(other)) {
+                return true;
+            }
+        }
+        Task before = timedTaskSet.lower(rule);
+        if (before != null && rule.isIntersect(before)) {
+            return true;
+        }
+        SortedSet<Task> duringRule = rule.isUnbounded()
+                ? prioritizedTaskSet.tailSet(rule)
+                : prioritizedTaskSet.subSet(rule, timeProbe(rule.getOccurrenceStart(rule.getLastIndex())
+                        .plus(rule.getDuration())));
+        return duringRule.stream()
+                .filter(task -> !(task instanceof RecurringTask))
+                .anyMatch(rule::isIntersect);
     }
 }
@@ -0,0 +1,424 @@
+package service;
+
+import exceptions.ManagerParseTaskException;
+import exceptions.ManagerSaveException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only log of changes of {@link FileBackedTaskManager}. A record is one row
+ * "seq,OPERATION,payload", a batch record "seq,OPERATION,n" is followed by n rows of tasks.
+ * Rows are written by {@link TaskCsvCodec}, a line break inside a quoted field does not end a row.
+ * Records are numbered, the task file keeps the number of the last record it contains,
+ * so records already written to the task file are skipped on replay.
+ * <p>
+ * A checkpoint closes the current segment: the file is renamed to "&lt;journal&gt;.&lt;last seq&gt;"
+ * and the records go on in a new file. Closed segments are replayed before the current one
+ * and removed when a written snapshot covers their records.
+ * <p>
+ * Without the group commit a record is written by the calling thread. With the group commit
+ * the caller only adds the record to the pending group, and the writer thread writes the group
+ * with one write call, forcing it to the disk according to the {@link StorageOptions.FsyncPolicy}.
+ */
+final class Journal implements Closeable {
+    static final String PUT = "PUT";
+    static final String CREATE_ALL = "CREATE_ALL";
+    static final String UPDATE_ALL = "UPDATE_ALL";
+    static final String REMOVE = "REMOVE";
+    static final String CLEAR = "CLEAR";
+    static final String ADD_DEPENDENCY = "ADD_DEPENDENCY";
+    static final String REMOVE_DEPENDENCY = "REMOVE_DEPENDENCY";
+
+    private final Path path;
+    // заменяется при закрытии сегмента, когда поток записи ничего не пишет
+    private FileChannel channel;
+    // примерный размер текущего сегмента в символах записей
+    private long segmentSize;
+    private final StorageOptions.FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private long lastSeq;
+    // время следующего fsync для политики PERIODIC и признак записанных, но не сброшенных на диск данных
+    private volatile long nextFsyncNanos;
+    private volatile boolean unforced;
+
+    // состояние группового коммита, writerThread == null если он выключен
+    private final Thread writerThread;
+    private final long windowNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final StringBuilder pending = new StringBuilder();
+    private final List<CompletableFuture<Void>> syncWaiters = new ArrayList<>();
+    private boolean closed;
+    private IOException failure;
+
+    Journal(Path path, long lastSeq, StorageOptions options) {
+        this.path = path;
+        this.lastSeq = lastSeq;
+        fsyncPolicy = options.getFsyncPolicy();
+        fsyncIntervalNanos = options.getFsyncInterval().toNanos();
+        nextFsyncNanos = System.nanoTime() + fsyncIntervalNanos;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            segmentSize = channel.size();
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось открыть журнал " + path.getFileName(), ex);
+        }
+        if (options.isGroupCommit()) {
+            windowNanos = options.getGroupCommitWindow().toNanos();
+            writerThread = new Thread(this::runWriter, "journal-writer-" + path.getFileName());
+            writerThread.setDaemon(true);
+            writerThread.start();
+        } else {
+            windowNanos = 0;
+            writerThread = null;
+        }
+    }
+
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    long getSegmentSize() {
+        return segmentSize;
+    }
+
+    void append(String operation, String payload) {
+        submit(++lastSeq + "," + operation + "," + payload + "\n");
+    }
+
+    void append(String operation, List<String> lines) {
+        StringBuilder record = new StringBuilder();
+        record.append(++lastSeq).append(',').append(operation).append(',').append(lines.size()).append('\n');
+        lines.forEach(line -> record.append(line).append('\n'));
+        submit(record.toString());
+    }
+
+    /**
+     * Returns a future, that completes when all records appended before the call are forced to the disk,
+     * whatever the fsync policy is.
+     */
+    CompletableFuture<Void> sync() {
+        if (writerThread == null) {
+            try {
+                force();
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException ex) {
+                return CompletableFuture.failedFuture(
+                        new ManagerSaveException("Не удалось сохранить журнал на диск " + path.getFileName(), ex));
+            }
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            checkState();
+            syncWaiters.add(future);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * Closes the current segment before a snapshot of the records up to {@link #getLastSeq()} is written,
+     * the numbering goes on in a new segment. An empty segment is not closed. The caller makes sure
+     * no records are appended meanwhile.
+     */
+    void roll() {
+        if (writerThread != null) {
+            sync().join();
+        }
+        if (segmentSize == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (fsyncPolicy != StorageOptions.FsyncPolicy.OS_BUFFERED) {
+                force();
+            }
+            channel.close();
+            Files.move(path, getSegmentPath(path, lastSeq), StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            segmentSize = 0;
+        } catch (IOException ex) {
+            throw new ManagerSaveException("Не удалось закрыть сегмент журнала " + path.getFileName(), ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static Path getSegmentPath(Path path, long lastSeq) {
+        return path.resolveSibling(path.getFileName() + "." + lastSeq);
+    }
+
+    /**
+     * Returns the closed segments of the journal in the order of their records.
+     */
+    static List<Path> getSegments(Path path) throws IOException {
+        return List.copyOf(findSegments(path).values());
+    }
+
+    /**
+     * Removes the closed segments with records up to {@code lastSeq}, they are covered by a written snapshot.
+     */
+    static void removeSegments(Path path, long lastSeq) throws IOException {
+        for (Path segment : findSegments(path).headMap(lastSeq, true).values()) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    private static NavigableMap<Long, Path> findSegments(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        NavigableMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                file -> file.getFileName().toString().startsWith(prefix))) {
+            for (Path file : files) {
+                String seq = file.getFileName().toString().substring(prefix.length());
+                if (seq.matches("\\d{1,18}")) {
+                    segments.put(Long.parseLong(seq), file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Writes the pending group, stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writerThread != null) {
+            lock.lock();
+            try {
+                closed = true;
+                changed.signal();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                writerThread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (fsyncPolicy != StorageOptions.FsyncPolicy.OS_BUFFERED && unforced) {
+                force();
+            }
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void submit(String record) {
+        segmentSize += record.length();
+        if (writerThread == null) {
+            try {
+                write(record);
+                afterWrite(false);
+            } catch (IOException ex) {
+                throw new ManagerSaveException("Не удалось записать изменение в журнал " + path.getFileName(), ex);
+            }
+            return;
+        }
+        lock.lock();
+        try {
+            checkState();
+            pending.append(record);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkState() {
+        if (failure != null) {
+            throw new ManagerSaveException("Журнал " + path.getFileName() + " недоступен после ошибки записи", failure);
+        }
+        if (closed) {
+            throw new ManagerSaveException("Журнал " + path.getFileName() + " закрыт", null);
+        }
+    }
+
+    // группа записывается одним вызовом, обрыв возможен только в конце файла
+    private void write(String records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void afterWrite(boolean syncRequested) throws IOException {
+        unforced = true;
+        boolean fsync = switch (fsyncPolicy) {
+            case EVERY_COMMIT -> true;
+            case PERIODIC -> System.nanoTime() - nextFsyncNanos >= 0;
+            case OS_BUFFERED -> false;
+        };
+        if (fsync || syncRequested) {
+            force();
+        }
+    }
+
+    private void force() throws IOException {
+        channel.force(false);
+        unforced = false;
+        nextFsyncNanos = System.nanoTime() + fsyncIntervalNanos;
+    }
+
+    private void runWriter() {
+        while (true) {
+            String group;
+            List<CompletableFuture<Void>> waiters;
+            lock.lock();
+            try {
+                if (!awaitGroup()) {
+                    return;
+                }
+                group = pending.toString();
+                pending.setLength(0);
+                waiters = List.copyOf(syncWaiters);
+                syncWaiters.clear();
+            } catch (InterruptedException ex) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                write(group);
+                afterWrite(!waiters.isEmpty());
+                waiters.forEach(waiter -> waiter.complete(null));
+            } catch (IOException ex) {
+                lock.lock();
+                try {
+                    failure = ex;
+                    syncWaiters.forEach(waiter -> waiter.completeExceptionally(ex));
+                    syncWaiters.clear();
+                } finally {
+                    lock.unlock();
+                }
+                waiters.forEach(waiter -> waiter.completeExceptionally(ex));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits under the lock for the next group. With the PERIODIC policy the wait is cut
+     * by the fsync time, so data written before a pause is still forced in time.
+     * @return false if the journal is closed and everything is written
+     */
+    private boolean awaitGroup() throws InterruptedException {
+        while (pending.isEmpty() && syncWaiters.isEmpty()) {
+            if (closed) {
+                return false;
+            }
+            if (unforced && fsyncPolicy == StorageOptions.FsyncPolicy.PERIODIC) {
+                long untilFsync = nextFsyncNanos - System.nanoTime();
+                if (untilFsync <= 0) {
+                    lock.unlock();
+                    try {
+                        force();
+                    } catch (IOException ex) {
+                        failure = ex;
+                    } finally {
+                        lock.lock();
+                    }
+                    if (failure != null) {
+                        return false;
+                    }
+                    continue;
+                }
+                changed.awaitNanos(untilFsync);
+            } else {
+                changed.await();
+            }
+        }
+        // окно группировки: изменения, пришедшие за это время, попадут в ту же запись
+        long remaining = windowNanos;
+        while (remaining > 0 && !closed) {
+            remaining = changed.awaitNanos(remaining);
+        }
+        return true;
+    }
+
+    interface RecordHandler {
+        /**
+         * @param lines lines of a batch record, empty for a single record
+         */
+        void apply(String operation, String payload, List<String> lines);
+    }
+
+    /**
+     * Applies records with numbers after {@code afterSeq}. A record torn by a crash at the end
+     * of the file is dropped and cut off the file, so new records are appended after the last whole one.
+     * @return the number of the last record in the journal
+     */
+    static long replay(Path path, long afterSeq, RecordHandler handler) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        List<String> lines = new ArrayList<>();
+        List<Integer> lineEnds = new ArrayList<>();
+        // перевод строки внутри кавычек относится к полю задачи, строка без перевода строки в конце оборвана
+        int lineStart = 0;
+        int lineEnd;
+        while ((lineEnd = TaskCsvCodec.recordEnd(bytes, lineStart, bytes.length)) < bytes.length) {
+            lines.add(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+            lineEnds.add(lineEnd + 1);
+            lineStart = lineEnd + 1;
+        }
+        long lastSeq = afterSeq;
+        int validLength = 0;
+        int index = 0;
+        while (index < lines.size()) {
+            String line = lines.get(index);
+            String[] fields = line.split(",", 3);
+            long seq;
+            int recordLines = 1;
+            try {
+                seq = Long.parseLong(fields[0]);
+                if (fields[1].equals(CREATE_ALL) || fields[1].equals(UPDATE_ALL)) {
+                    recordLines += Integer.parseInt(fields[2]);
+                    if (index + recordLines > lines.size()) {
+                        break; // пакет оборван
+                    }
+                }
+                if (seq > afterSeq) {
+                    handler.apply(fields[1], fields[2], lines.subList(index + 1, index + recordLines));
+                }
+            } catch (RuntimeException ex) {
+                throw new ManagerParseTaskException("Неверная запись журнала: " + line, ex);
+            }
+            lastSeq = Math.max(lastSeq, seq);
+            index += recordLines;
+            validLength = lineEnds.get(index - 1);
+        }
+        if (validLength < bytes.length) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+        return lastSeq;
+    }
+}
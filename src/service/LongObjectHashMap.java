@@ -0,0 +1,183 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hash map from primitive long keys to objects with open addressing and Robin Hood linear probing.
+ * Keys are stored without boxing and without a node object per entry.
+ * Entries of a probe chain are kept ordered by their home slot, so lookups and removals stop
+ * as soon as they reach an entry closer to its home, even inside a long run of sequential ids.
+ * Null values are not supported: an empty slot is marked by null in the values array.
+ */
+final class LongObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), DEFAULT_CAPACITY) - 1) << 1;
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Значение не может быть null");
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            V oldValue = (V) values[index];
+            values[index] = value;
+            return oldValue;
+        }
+        insert(key, value);
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V oldValue = (V) values[index];
+        values[index] = null;
+        size--;
+        shiftBack(index);
+        return oldValue;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns a new list of the map values.
+     */
+    @SuppressWarnings("unchecked")
+    List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                list.add((V) value);
+            }
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        int index = slot(key);
+        for (int distance = 0; values[index] != null && distance <= probeDistance(index); distance++) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    // новый элемент занимает ячейку элемента, который ближе к своей начальной ячейке, и двигает его дальше
+    private void insert(long key, Object value) {
+        int index = slot(key);
+        int distance = 0;
+        while (values[index] != null) {
+            int residentDistance = probeDistance(index);
+            if (residentDistance < distance) {
+                long residentKey = keys[index];
+                Object residentValue = values[index];
+                keys[index] = key;
+                values[index] = value;
+                key = residentKey;
+                value = residentValue;
+                distance = residentDistance;
+            }
+            index = (index + 1) & mask;
+            distance++;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    // как в HashMap для Long: последовательные id попадают в соседние ячейки и не образуют коллизий
+    private int slot(long key) {
+        int hash = (int) (key ^ (key >>> 32));
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int probeDistance(int index) {
+        return (index - slot(keys[index])) & mask;
+    }
+
+    // сдвигаем назад следующие элементы цепочки, пока не встретится пустая ячейка или элемент на своём месте
+    private void shiftBack(int emptyIndex) {
+        int index = (emptyIndex + 1) & mask;
+        while (values[index] != null && probeDistance(index) > 0) {
+            keys[emptyIndex] = keys[index];
+            values[emptyIndex] = values[index];
+            values[index] = null;
+            emptyIndex = index;
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
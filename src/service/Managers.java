@@ -7,6 +7,14 @@ public abstract class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static ConcurrentTaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    public static ConcurrentTaskManager getConcurrentWithSnapshotReads() {
+        return new ConcurrentTaskManager(true);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
@@ -0,0 +1,21 @@
+package service;
+
+import model.Task;
+
+/**
+ * Receives the records of a task file in the order they are read.
+ * Removals occur only in delta snapshots, other handlers reject them.
+ */
+interface SnapshotHandler {
+    void restoreTask(Task task);
+
+    void restoreDependency(long blockerId, long blockedId);
+
+    default void removeTask(long id) {
+        throw new IllegalArgumentException("Удаление задачи вне дельта-снимка");
+    }
+
+    default void removeDependency(long blockerId, long blockedId) {
+        throw new IllegalArgumentException("Удаление зависимости вне дельта-снимка");
+    }
+}
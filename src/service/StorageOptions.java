@@ -0,0 +1,283 @@
+package service;
+
+import java.time.Duration;
+
+/**
+ * Settings of the file storage of {@link FileBackedTaskManager}. The object is immutable,
+ * {@code with} methods return a copy with the changed setting.
+ */
+public final class StorageOptions {
+    private final boolean journal;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration fsyncInterval;
+    private final Duration groupCommitWindow;
+    private final SnapshotFormat snapshotFormat;
+    private final boolean verifyOnLoad;
+    private final boolean parallelLoad;
+    private final boolean compressed;
+    private final int maxDeltaSnapshots;
+    private final Duration checkpointInterval;
+    private final long checkpointLogSize;
+    private final boolean persistentHistory;
+
+    /**
+     * When the written data is forced to the disk.
+     */
+    public enum FsyncPolicy {
+        /**
+         * Every commit is forced before it is reported as durable.
+         */
+        EVERY_COMMIT,
+        /**
+         * Commits are forced not more often than once per {@link #getFsyncInterval()},
+         * a crash can lose the changes of the last interval.
+         */
+        PERIODIC,
+        /**
+         * The data is left in the OS buffers, it survives a crash of the process, but not of the machine.
+         * A rewritten task file is forced before the rename under any policy.
+         */
+        OS_BUFFERED
+    }
+
+    /**
+     * The format in which the task file is rewritten. A task file of any format is loaded.
+     */
+    public enum SnapshotFormat {
+        /**
+         * Text lines, that can be read and edited by hand.
+         */
+        CSV,
+        /**
+         * Fixed-width numbers and length-prefixed strings, read from the mapped file without text parsing.
+         */
+        BINARY
+    }
+
+    private StorageOptions(boolean journal, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+                           Duration groupCommitWindow, SnapshotFormat snapshotFormat, boolean verifyOnLoad, boolean parallelLoad,
+                           boolean compressed, int maxDeltaSnapshots, Duration checkpointInterval,
+                           long checkpointLogSize, boolean persistentHistory) {
+        this.journal = journal;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+        this.groupCommitWindow = groupCommitWindow;
+        this.snapshotFormat = snapshotFormat;
+        this.verifyOnLoad = verifyOnLoad;
+        this.parallelLoad = parallelLoad;
+        this.compressed = compressed;
+        this.maxDeltaSnapshots = maxDeltaSnapshots;
+        this.checkpointInterval = checkpointInterval;
+        this.checkpointLogSize = checkpointLogSize;
+        this.persistentHistory = persistentHistory;
+    }
+
+    /**
+     * The whole CSV file is rewritten and forced to the disk on every change.
+     */
+    public static StorageOptions defaults() {
+        return new StorageOptions(false, FsyncPolicy.OS_BUFFERED, Duration.ofSeconds(1), null, SnapshotFormat.CSV,
+                true, false, false, 0, null, 0, false);
+    }
+
+    /**
+     * In the journal mode a change is appended to the journal file as one record,
+     * the task file is rewritten only by {@link FileBackedTaskManager#checkpoint()}.
+     */
+    public StorageOptions withJournal(boolean journal) {
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    public StorageOptions withFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    /**
+     * Sets the interval of the {@link FsyncPolicy#PERIODIC} policy.
+     */
+    public StorageOptions withFsyncInterval(Duration fsyncInterval) {
+        if (fsyncInterval.isNegative() || fsyncInterval.isZero()) {
+            throw new IllegalArgumentException("Интервал fsync должен быть положительным: " + fsyncInterval);
+        }
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    /**
+     * Turns on the group commit in the journal mode: records are written by a separate thread,
+     * which waits {@code window} after the first record of a group and writes all records
+     * that came in this time with one write and at most one fsync. A zero window groups only
+     * the records that came while the previous group was written.
+     */
+    public StorageOptions withGroupCommit(Duration window) {
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("Окно группировки не может быть отрицательным: " + window);
+        }
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, window, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    public StorageOptions withSnapshotFormat(SnapshotFormat snapshotFormat) {
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    /**
+     * Tasks of the task file are added in one batch without checking each of them. With {@code verify}
+     * the loaded tasks are checked once afterwards for repeated ids and time overlaps, in O(n).
+     * Without it a task file edited by hand may leave the manager in an inconsistent state.
+     */
+    public StorageOptions withVerifyOnLoad(boolean verifyOnLoad) {
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    /**
+     * Lines of a CSV task file are parsed by the threads of the common fork-join pool, the file is split
+     * into parts at line boundaries. The parsed tasks are restored by one thread, as in the sequential load.
+     */
+    public StorageOptions withParallelLoad(boolean parallelLoad) {
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    /**
+     * Snapshots and delta snapshots are written compressed in the GZIP format. A compressed file
+     * is recognized on load, so the setting may be changed for an existing task file.
+     */
+    public StorageOptions withCompression(boolean compressed) {
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    /**
+     * Instead of rewriting the whole task file a save writes a delta snapshot: the records changed since
+     * the previous save and the ids of removed tasks. Delta snapshots form a chain after the task file,
+     * which is merged with it on load. After {@code maxDeltaSnapshots} delta snapshots, or if a delta snapshot
+     * would hold as many records as the board, the whole task file is written and the chain is removed.
+     * Zero turns delta snapshots off.
+     */
+    public StorageOptions withDeltaSnapshots(int maxDeltaSnapshots) {
+        if (maxDeltaSnapshots < 0) {
+            throw new IllegalArgumentException("Число дельта-снимков не может быть отрицательным: "
+                    + maxDeltaSnapshots);
+        }
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    /**
+     * Turns on the background checkpoint in the journal mode: a separate thread writes the task file
+     * every {@code interval} if the journal has new records, and removes the journal segments it covers.
+     * Changes wait only while the snapshot is encoded, it is compressed and written without blocking them.
+     */
+    public StorageOptions withCheckpointInterval(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Интервал контрольной точки должен быть положительным: " + interval);
+        }
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots, interval, checkpointLogSize,
+                persistentHistory);
+    }
+
+    /**
+     * Turns on the background checkpoint in the journal mode, that starts when the current journal segment
+     * grows to about {@code bytes}. Zero turns the size threshold off.
+     */
+    public StorageOptions withCheckpointLogSize(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Размер журнала не может быть отрицательным: " + bytes);
+        }
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots, checkpointInterval, bytes,
+                persistentHistory);
+    }
+
+    /**
+     * The browsing history is kept in the file {@code <task file>.history} and restored on load.
+     * Every view appends the id of the task to the file, which is rewritten with the ids of the history
+     * when it grows to twice the history.
+     */
+    public StorageOptions withPersistentHistory(boolean persistentHistory) {
+        return new StorageOptions(journal, fsyncPolicy, fsyncInterval, groupCommitWindow, snapshotFormat, verifyOnLoad,
+                parallelLoad, compressed, maxDeltaSnapshots,
+                checkpointInterval, checkpointLogSize, persistentHistory);
+    }
+
+    public boolean isJournal() {
+        return journal;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public Duration getFsyncInterval() {
+        return fsyncInterval;
+    }
+
+    public boolean isGroupCommit() {
+        return groupCommitWindow != null;
+    }
+
+    /**
+     * Returns the group commit window, null if the group commit is off.
+     */
+    public Duration getGroupCommitWindow() {
+        return groupCommitWindow;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public boolean isVerifyOnLoad() {
+        return verifyOnLoad;
+    }
+
+    public boolean isParallelLoad() {
+        return parallelLoad;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public int getMaxDeltaSnapshots() {
+        return maxDeltaSnapshots;
+    }
+
+    public boolean isDeltaSnapshots() {
+        return maxDeltaSnapshots > 0;
+    }
+
+    public boolean isBackgroundCheckpoint() {
+        return checkpointInterval != null || checkpointLogSize > 0;
+    }
+
+    /**
+     * Returns the interval of the background checkpoint, null if it does not run by time.
+     */
+    public Duration getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public long getCheckpointLogSize() {
+        return checkpointLogSize;
+    }
+
+    public boolean isPersistentHistory() {
+        return persistentHistory;
+    }
+}
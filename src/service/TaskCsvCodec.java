@@ -0,0 +1,406 @@
+package service;
+
+import exceptions.ManagerParseTaskException;
+import model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Rows of the CSV task file and of the journal in the RFC 4180 format. A field with a comma, a quote,
+ * a line break or the text "null" is quoted and quotes inside it are doubled, so any name and description
+ * round-trips, an unquoted {@code null} is a missing value.
+ * <p>
+ * Rows are parsed from a char array: numbers, types and statuses are read in place without taking
+ * substrings, only names and descriptions become strings. Rows are written to a buffer reused by the codec,
+ * so an instance must not be shared between threads.
+ * <p>
+ * A task row is "id,type,name,status,description,startTime,duration", a subtask adds the epic id,
+ * a recurring task of the type RECURRING adds the repeat interval and the repeat end, an epic has no time
+ * fields. Other rows are dependencies "blockerId,DEPENDENCY,blockedId" and the journal mark "lastSeq,JOURNAL",
+ * delta snapshots also hold removals "id,REMOVED" and "blockerId,REMOVED_DEPENDENCY,blockedId".
+ */
+final class TaskCsvCodec {
+    private static final String NULL = "null";
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final RowType[] ROW_TYPES = RowType.values();
+
+    private enum RowType {
+        TASK, EPIC, SUBTASK, RECURRING, DEPENDENCY, JOURNAL, REMOVED, REMOVED_DEPENDENCY
+    }
+
+    private final StringBuilder row = new StringBuilder(128);
+    private final StringBuilder quoted = new StringBuilder();
+    // разбираемая строка, позиция следующего поля и границы последнего поля без кавычек
+    private char[] chars;
+    private int position;
+    private int end;
+    private boolean fieldsLeft;
+    private int fieldStart;
+    private int fieldEnd;
+
+    String encode(Task task) {
+        row.setLength(0);
+        append(task, row);
+        return row.toString();
+    }
+
+    StringBuilder append(Task task, StringBuilder out) {
+        out.append(task.getId()).append(',');
+        out.append(task instanceof RecurringTask ? RowType.RECURRING.name() : task.getType().name()).append(',');
+        appendString(task.getName(), out).append(',');
+        out.append(task.getStatus()).append(',');
+        appendString(task.getDescription(), out);
+        if (task.getType() == TaskType.EPIC) {
+            return out;
+        }
+        out.append(',');
+        appendEpochSecond(task.getStartTime(), out).append(',');
+        if (task.getDuration() != null) {
+            out.append(task.getDuration().getSeconds());
+        } else {
+            out.append(NULL);
+        }
+        if (task instanceof Subtask subtask) {
+            out.append(',').append(subtask.getEpicId());
+        } else if (task instanceof RecurringTask rule) {
+            out.append(',').append(rule.getRepeatInterval().getSeconds()).append(',');
+            appendEpochSecond(rule.getRepeatUntil(), out);
+        }
+        return out;
+    }
+
+    StringBuilder appendDependency(Dependency dependency, StringBuilder out) {
+        return out.append(dependency.getBlockerId()).append(',').append(RowType.DEPENDENCY.name()).append(',')
+                .append(dependency.getBlockedId());
+    }
+
+    StringBuilder appendRemoval(long id, StringBuilder out) {
+        return out.append(id).append(',').append(RowType.REMOVED.name());
+    }
+
+    StringBuilder appendDependencyRemoval(Dependency dependency, StringBuilder out) {
+        return out.append(dependency.getBlockerId()).append(',').append(RowType.REMOVED_DEPENDENCY.name())
+                .append(',').append(dependency.getBlockedId());
+    }
+
+    StringBuilder appendJournalMark(long lastSeq, StringBuilder out) {
+        return out.append(lastSeq).append(',').append(RowType.JOURNAL.name());
+    }
+
+    Task decode(String value) {
+        char[] valueChars = value.toCharArray();
+        Task[] task = new Task[1];
+        decodeRow(valueChars, 0, valueChars.length, new SnapshotHandler() {
+            @Override
+            public void restoreTask(Task restored) {
+                task[0] = restored;
+            }
+
+            @Override
+            public void restoreDependency(long blockerId, long blockedId) {
+                throw new IllegalArgumentException("Строка зависимости вместо задачи");
+            }
+        });
+        if (task[0] == null) {
+            throw new ManagerParseTaskException("Неверный формат строки: " + value, null);
+        }
+        return task[0];
+    }
+
+    /**
+     * Passes the rows of {@code chars[from, to)} to the handler. A row ends with a line break outside quotes,
+     * a line break "\r\n" of a file edited on Windows is accepted.
+     * @return the number of the last journal record from the journal mark, 0 if there is no mark
+     */
+    long decodeRows(char[] rows, int from, int to, SnapshotHandler handler) {
+        long lastSeq = 0;
+        int start = from;
+        while (start < to) {
+            int recordEnd = recordEnd(rows, start, to);
+            int rowEnd = recordEnd > start && rows[recordEnd - 1] == '\r' ? recordEnd - 1 : recordEnd;
+            lastSeq = Math.max(lastSeq, decodeRow(rows, start, rowEnd, handler));
+            start = recordEnd + 1;
+        }
+        return lastSeq;
+    }
+
+    // возвращает номер записи журнала для отметки журнала, иначе 0
+    private long decodeRow(char[] rowChars, int from, int to, SnapshotHandler handler) {
+        chars = rowChars;
+        position = from;
+        end = to;
+        fieldsLeft = true;
+        try {
+            long id = readLong();
+            RowType type = readRowType();
+            switch (type) {
+                case DEPENDENCY -> {
+                    long blockedId = readLong();
+                    expectEnd();
+                    handler.restoreDependency(id, blockedId);
+                    return 0;
+                }
+                case JOURNAL -> {
+                    expectEnd();
+                    return id;
+                }
+                case REMOVED -> {
+                    expectEnd();
+                    handler.removeTask(id);
+                    return 0;
+                }
+                case REMOVED_DEPENDENCY -> {
+                    long blockedId = readLong();
+                    expectEnd();
+                    handler.removeDependency(id, blockedId);
+                    return 0;
+                }
+                default -> {
+                    Task task = readTask(type);
+                    task.setId(id);
+                    handler.restoreTask(task);
+                    return 0;
+                }
+            }
+        } catch (IllegalArgumentException | ArithmeticException ex) {
+            throw new ManagerParseTaskException("Неверный формат строки: " + new String(rowChars, from, to - from), ex);
+        }
+    }
+
+    private Task readTask(RowType type) {
+        String name = readString();
+        TaskStatus status = readStatus();
+        String description = readString();
+        Task task;
+        if (type == RowType.EPIC) {
+            task = new Epic(name, description);
+        } else if (type == RowType.TASK && !fieldsLeft) {
+            task = new Task(name, description); // строка задачи без времени из ранних версий файла
+        } else {
+            LocalDateTime startTime = readEpochSecond();
+            nextField();
+            Duration duration = isNullField() ? null : Duration.ofSeconds(parseLong());
+            task = switch (type) {
+                case SUBTASK -> new Subtask(name, description, startTime, duration, readLong());
+                case RECURRING -> new RecurringTask(name, description, startTime, duration,
+                        Duration.ofSeconds(readLong()), readEpochSecond());
+                default -> new Task(name, description, startTime, duration);
+            };
+        }
+        expectEnd();
+        task.setStatus(status);
+        return task;
+    }
+
+    /**
+     * Returns the index of the line break that ends the row starting at {@code from},
+     * or {@code to} if the row is not finished. A line break inside a quoted field belongs to the field.
+     */
+    static int recordEnd(char[] rows, int from, int to) {
+        boolean inQuotes = false;
+        boolean atFieldStart = true;
+        for (int i = from; i < to; i++) {
+            char c = rows[i];
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < to && rows[i + 1] == '"') {
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                }
+                continue;
+            }
+            if (c == '\n') {
+                return i;
+            }
+            inQuotes = c == '"' && atFieldStart;
+            atFieldStart = c == ',';
+        }
+        return to;
+    }
+
+    /**
+     * Same as {@link #recordEnd(char[], int, int)} for UTF-8 bytes: the bytes of quotes, commas
+     * and line breaks never occur inside multibyte characters.
+     */
+    static int recordEnd(byte[] rows, int from, int to) {
+        boolean inQuotes = false;
+        boolean atFieldStart = true;
+        for (int i = from; i < to; i++) {
+            byte c = rows[i];
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < to && rows[i + 1] == '"') {
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                }
+                continue;
+            }
+            if (c == '\n') {
+                return i;
+            }
+            inQuotes = c == '"' && atFieldStart;
+            atFieldStart = c == ',';
+        }
+        return to;
+    }
+
+    private static StringBuilder appendString(String value, StringBuilder out) {
+        if (value == null) {
+            return out.append(NULL);
+        }
+        if (!needsQuotes(value)) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (value.equals(NULL)) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static StringBuilder appendEpochSecond(LocalDateTime time, StringBuilder out) {
+        return time != null ? out.append(time.toEpochSecond(ZoneOffset.UTC)) : out.append(NULL);
+    }
+
+    private void nextField() {
+        if (!fieldsLeft) {
+            throw new IllegalArgumentException("В строке не хватает полей");
+        }
+        fieldStart = position;
+        while (position < end && chars[position] != ',') {
+            position++;
+        }
+        fieldEnd = position;
+        fieldsLeft = position < end;
+        if (fieldsLeft) {
+            position++;
+        }
+    }
+
+    private void expectEnd() {
+        if (fieldsLeft) {
+            throw new IllegalArgumentException("В строке лишние поля");
+        }
+    }
+
+    private boolean fieldEquals(String value) {
+        if (fieldEnd - fieldStart != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (chars[fieldStart + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isNullField() {
+        return fieldEquals(NULL);
+    }
+
+    private long readLong() {
+        nextField();
+        return parseLong();
+    }
+
+    private long parseLong() {
+        int i = fieldStart;
+        boolean negative = i < fieldEnd && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == fieldEnd) {
+            throw new IllegalArgumentException("Пустое числовое поле");
+        }
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Неверное число: " + new String(chars, fieldStart,
+                        fieldEnd - fieldStart));
+            }
+            value = Math.addExact(Math.multiplyExact(value, 10), negative ? -digit : digit);
+        }
+        return value;
+    }
+
+    private LocalDateTime readEpochSecond() {
+        nextField();
+        return isNullField() ? null : LocalDateTime.ofEpochSecond(parseLong(), 0, ZoneOffset.UTC);
+    }
+
+    private RowType readRowType() {
+        nextField();
+        for (RowType type : ROW_TYPES) {
+            if (fieldEquals(type.name())) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип строки");
+    }
+
+    private TaskStatus readStatus() {
+        nextField();
+        for (TaskStatus status : STATUSES) {
+            if (fieldEquals(status.name())) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный статус");
+    }
+
+    private String readString() {
+        if (!fieldsLeft || position == end || chars[position] != '"') {
+            nextField();
+            return isNullField() ? null : new String(chars, fieldStart, fieldEnd - fieldStart);
+        }
+        quoted.setLength(0);
+        position++;
+        while (true) {
+            if (position == end) {
+                throw new IllegalArgumentException("Нет закрывающей кавычки");
+            }
+            char c = chars[position++];
+            if (c == '"') {
+                if (position < end && chars[position] == '"') {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            quoted.append(c);
+        }
+        fieldsLeft = position < end;
+        if (fieldsLeft) {
+            if (chars[position] != ',') {
+                throw new IllegalArgumentException("Символ после закрывающей кавычки");
+            }
+            position++;
+        }
+        return quoted.toString();
+    }
+}
@@ -1,16 +1,29 @@
 package service;
 
 import model.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.SortedMap;
 import java.util.SortedSet;
 
 public interface TaskManager {
-    ArrayList<Task> getAllTasks();
+    List<Task> getAllTasks();
 
-    ArrayList<Epic> getAllEpics();
+    List<Epic> getAllEpics();
 
-    ArrayList<Subtask> getAllSubtasks();
+    List<Subtask> getAllSubtasks();
+
+    /**
+     * Returns tasks with the given status from the status index without scanning all tasks.
+     */
+    List<Task> getTasksByStatus(TaskStatus status);
+
+    /**
+     * Returns subtasks with the given status from the status index without scanning all subtasks.
+     */
+    List<Subtask> getSubtasksByStatus(TaskStatus status);
 
     void clearAllTasks();
 
@@ -18,13 +31,38 @@ public interface TaskManager {
 
     void clearAllSubtasks();
 
-    Task getTask(Integer id);
+    Task getTask(long id);
+
+    Epic getEpic(long id);
+
+    Subtask getSubtask(long id);
+
+    List<Subtask> getSubtasksOfEpic(long epicId);
+
+    /**
+     * Links two tasks or subtasks: the blocked task can start only after the blocker ends.
+     * @throws exceptions.DependencyCycleException if the link closes a cycle
+     */
+    void addDependency(long blockerId, long blockedId);
 
-    Epic getEpic(Integer id);
+    void removeDependency(long blockerId, long blockedId);
 
-    Subtask getSubtask(Integer id);
+    List<Dependency> getDependencies();
 
-    List<Subtask> getSubtasksOfEpic(Integer epicId);
+    /**
+     * Returns the tasks that block the given task directly.
+     */
+    List<Task> getBlockers(long id);
+
+    /**
+     * Returns the linked tasks in an order where every blocker goes before the tasks it blocks.
+     */
+    List<Task> getTopologicalOrder();
+
+    /**
+     * Returns the longest chain of linked tasks by their start times and durations.
+     */
+    CriticalPath getCriticalPath();
 
     Task createNewTask(Task task);
 
@@ -32,19 +70,59 @@ public interface TaskManager {
 
     Subtask createNewSubtask(Subtask subtask);
 
+    /**
+     * Creates tasks and subtasks of existing epics atomically, the batch is validated as a whole.
+     * @return the created tasks with assigned ids
+     */
+    List<Task> createAll(List<? extends Task> newTasks);
+
     void updateTask(Task updatedTask);
 
     void updateSubtask(Subtask updatedSubtask);
 
     void updateEpic(Epic updatedEpic);
 
-    void removeTask(Integer id);
+    /**
+     * Updates tasks, subtasks and epics atomically, the batch is validated as a whole.
+     */
+    void updateAll(List<? extends Task> updatedTasks);
 
-    void removeSubtask(Integer id);
+    void removeTask(long id);
 
-    void removeEpic(Integer id);
+    void removeSubtask(long id);
+
+    void removeEpic(long id);
 
     List<Task> getHistory();
 
+    /**
+     * Returns tasks and subtasks ordered by the start time, a recurring task is listed once by its first start.
+     */
     SortedSet<Task> getPrioritizedTasks();
+
+    /**
+     * Returns tasks with the start time in [from, to) ordered by the start time.
+     * A null bound means no limit on that side. Recurring tasks are expanded into occurrences of the period.
+     * @throws IllegalArgumentException if {@code to} is null and there is an unbounded recurring task
+     */
+    SortedSet<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Returns the first {@code limit} tasks with the start time in [from, to).
+     * Recurring tasks are expanded lazily, not more than {@code limit} occurrences are created.
+     */
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Returns tasks and subtasks by the days of the period [from, to], both bounds inclusive.
+     * A task crossing midnight is listed on every day it takes, days without tasks are skipped.
+     */
+    SortedMap<LocalDate, List<Task>> getCalendar(LocalDate from, LocalDate to);
+
+    /**
+     * Finds the nearest free intervals, that start not earlier than {@code after}
+     * and can fit a task of the given duration.
+     * @param count maximum number of intervals, the last interval may be unbounded (end = null)
+     */
+    List<TimeSlot> getFreeTimeSlots(LocalDateTime after, Duration duration, int count);
 }
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import service.FileBackedTaskManager;
 import service.Managers;
 import service.TaskManager;
 
@@ -70,6 +71,8 @@ abstract public class BaseHttpHandlerTest {
     public void shutDown() throws IOException {
         server.stop();
         Files.deleteIfExists(filePath);
+        Files.deleteIfExists(FileBackedTaskManager.getIdFilePath(filePath));
+        Files.deleteIfExists(FileBackedTaskManager.getPreviousSnapshotPath(filePath));
     }
 }
 
@@ -0,0 +1,63 @@
+package httpserver;
+
+import com.google.gson.reflect.TypeToken;
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CalendarHandlerTest extends BaseHttpHandlerTest {
+    public CalendarHandlerTest() throws IOException {
+        super("/calendar");
+    }
+
+    @Test
+    @DisplayName("Получить задачи по дням периода")
+    void getCalendar() throws IOException, InterruptedException {
+        URI uri = URI.create(BASE_URL + "?from=2025-02-07&to=2025-02-13");
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        Type calendarType = new TypeToken<TreeMap<String, List<Task>>>(){}.getType();
+        Map<String, List<Task>> actual = gson.fromJson(response.body(), calendarType);
+        assertEquals(List.of("2025-02-07", "2025-02-08"), List.copyOf(actual.keySet()));
+        assertEquals(List.of(subtask), actual.get("2025-02-07"));
+        assertEquals(List.of(task), actual.get("2025-02-08"));
+    }
+
+    @Test
+    @DisplayName("Получить задачи одного дня")
+    void getCalendarOfOneDay() throws IOException, InterruptedException {
+        URI uri = URI.create(BASE_URL + "?from=2025-02-08");
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        Type calendarType = new TypeToken<TreeMap<String, List<Task>>>(){}.getType();
+        Map<String, List<Task>> actual = gson.fromJson(response.body(), calendarType);
+        assertEquals(Map.of("2025-02-08", List.of(task)), actual);
+    }
+
+    @Test
+    @DisplayName("Некорректные параметры периода")
+    void getCalendarWithInvalidParameters() throws IOException, InterruptedException {
+        for (String query : List.of("", "?from=08.02.2025", "?from=2025-02-10&to=2025-02-01")) {
+            URI uri = URI.create(BASE_URL + query);
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), query);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package httpserver;
+
+import com.google.gson.reflect.TypeToken;
+import model.CriticalPath;
+import model.Dependency;
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DependenciesHandlerTest extends BaseHttpHandlerTest {
+    public DependenciesHandlerTest() throws IOException {
+        super("/dependencies");
+    }
+
+    @Test
+    @DisplayName("Добавить зависимость")
+    void addDependency() throws IOException, InterruptedException {
+        Dependency dependency = new Dependency(subtask.getId(), task.getId());
+        URI uri = URI.create(BASE_URL);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(dependency))).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, response.statusCode());
+        assertEquals(List.of(dependency), manager.getDependencies());
+    }
+
+    @Test
+    @DisplayName("Добавить зависимость, которая образует цикл")
+    void addDependencyWithCycle() throws IOException, InterruptedException {
+        manager.addDependency(subtask.getId(), task.getId());
+        URI uri = URI.create(BASE_URL);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new Dependency(task.getId(), subtask.getId()))))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(406, response.statusCode());
+        assertEquals(1, manager.getDependencies().size());
+    }
+
+    @Test
+    @DisplayName("Получить блокирующие задачи, порядок и критический путь")
+    void getBlockersOrderAndCriticalPath() throws IOException, InterruptedException {
+        manager.addDependency(subtask.getId(), task.getId());
+        Type listTaskType = new TypeToken<ArrayList<Task>>(){}.getType();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/" + task.getId()))
+                .GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals(List.of(subtask), gson.fromJson(response.body(), listTaskType));
+
+        response = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/order")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals(List.of(subtask, task), gson.fromJson(response.body(), listTaskType));
+
+        response = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/critical")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        CriticalPath criticalPath = gson.fromJson(response.body(), CriticalPath.class);
+        // подзадача заканчивается задолго до начала задачи, поэтому путь состоит из одной задачи
+        assertEquals(List.of(task), criticalPath.getTasks());
+        assertEquals(task.getStartTime(), criticalPath.getStart());
+        assertEquals(task.getEndTime(), criticalPath.getEnd());
+        assertEquals(task.getDuration(), criticalPath.getDuration());
+    }
+
+    @Test
+    @DisplayName("Удалить зависимость")
+    void removeDependency() throws IOException, InterruptedException {
+        manager.addDependency(subtask.getId(), task.getId());
+        URI uri = URI.create(BASE_URL + "?blockerId=" + subtask.getId() + "&blockedId=" + task.getId());
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(manager.getDependencies().isEmpty());
+
+        response = client.send(HttpRequest.newBuilder(uri).DELETE().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Удалить зависимость, некорректные параметры")
+    void removeDependencyWithInvalidParameters() throws IOException, InterruptedException {
+        manager.addDependency(subtask.getId(), task.getId());
+        for (String query : List.of("", "?blockerId=" + subtask.getId(), "?blockerId=first&blockedId=" + task.getId())) {
+            URI uri = URI.create(BASE_URL + query);
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).DELETE().build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), query);
+        }
+        assertEquals(1, manager.getDependencies().size());
+    }
+}
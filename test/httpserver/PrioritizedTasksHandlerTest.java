@@ -2,6 +2,7 @@ package httpserver;
 
 import com.google.gson.reflect.TypeToken;
 import model.Task;
+import model.TimeSlot;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -31,6 +32,53 @@ public class PrioritizedTasksHandlerTest extends BaseHttpHandlerTest{
         assertEquals(task, actual.getLast());
     }
 
+    @Test
+    @DisplayName("Получить задачи за период")
+    void getPrioritizedTasksInPeriod() throws IOException, InterruptedException {
+        URI uri1 = URI.create(BASE_URL + "?from=" + task.getStartTime().toLocalDate().atStartOfDay());
+        URI uri2 = URI.create(BASE_URL + "?to=" + task.getStartTime() + "&limit=1");
+        HttpRequest request1 = HttpRequest.newBuilder(uri1).GET().build();
+        HttpRequest request2 = HttpRequest.newBuilder(uri2).GET().build();
+
+        HttpResponse<String> response1 = client.send(request1, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response2 = client.send(request2, HttpResponse.BodyHandlers.ofString());
+        List<Task> actual1 = gson.fromJson(response1.body(), new TypeToken<List<Task>>(){}.getType());
+        List<Task> actual2 = gson.fromJson(response2.body(), new TypeToken<List<Task>>(){}.getType());
+
+        assertEquals(200, response1.statusCode());
+        assertEquals(List.of(task), actual1);
+        assertEquals(200, response2.statusCode());
+        assertEquals(List.of(subtask), actual2);
+    }
+
+    @Test
+    @DisplayName("Получить свободные интервалы")
+    void getFreeTimeSlots() throws IOException, InterruptedException {
+        URI uri = URI.create(BASE_URL + "/free?duration=PT1H&count=2&after=" + subtask.getStartTime());
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        List<TimeSlot> actual = gson.fromJson(response.body(), new TypeToken<List<TimeSlot>>(){}.getType());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(List.of(new TimeSlot(subtask.getEndTime(), task.getStartTime()),
+                new TimeSlot(task.getEndTime(), null)), actual);
+    }
+
+    @Test
+    @DisplayName("Свободные интервалы, некорректные параметры")
+    void getFreeTimeSlotsWithInvalidParameters() throws IOException, InterruptedException {
+        URI uri1 = URI.create(BASE_URL + "/free");
+        URI uri2 = URI.create(BASE_URL + "/free?duration=1h");
+        HttpRequest request1 = HttpRequest.newBuilder(uri1).GET().build();
+        HttpRequest request2 = HttpRequest.newBuilder(uri2).GET().build();
+
+        HttpResponse<String> response1 = client.send(request1, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response2 = client.send(request2, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response1.statusCode());
+        assertEquals(400, response2.statusCode());
+    }
+
     @Test
     @DisplayName("Некорректный адрес или метод запроса")
     void invalidRequest() throws IOException, InterruptedException {
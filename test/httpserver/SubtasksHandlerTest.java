@@ -212,4 +212,23 @@ public class SubtasksHandlerTest extends BaseHttpHandlerTest {
         assertEquals(405, response4.statusCode());
         assertEquals(406, response5.statusCode());
     }
+
+    @Test
+    @DisplayName("Получить подзадачи по статусу")
+    public void getSubtasksByStatus() throws IOException, InterruptedException {
+        URI uri = URI.create(BASE_URL + "?status=NEW");
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        Type listSubtaskType = new TypeToken<ArrayList<Subtask>>(){}.getType();
+        List<Subtask> actual = gson.fromJson(response.body(), listSubtaskType);
+        assertEquals(List.of(subtask), actual);
+
+        uri = URI.create(BASE_URL + "?status=IN_PROGRESS");
+        request = HttpRequest.newBuilder(uri).GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        actual = gson.fromJson(response.body(), listSubtaskType);
+        assertTrue(actual.isEmpty());
+    }
 }
@@ -214,4 +214,79 @@ public class TasksHandlerTest extends BaseHttpHandlerTest {
         assertEquals(405, response4.statusCode());
         assertEquals(406, response5.statusCode());
     }
+
+    @Test
+    @DisplayName("Получить задачи по статусу")
+    void getTasksByStatus() throws IOException, InterruptedException {
+        Task doneTask = manager.createNewTask(new Task("done_task_name", "done_task_description"));
+        doneTask.setStatus(TaskStatus.DONE);
+        manager.updateTask(doneTask);
+
+        URI uri = URI.create(BASE_URL + "?status=DONE");
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        Type listTaskType = new TypeToken<ArrayList<Task>>(){}.getType();
+        List<Task> actual = gson.fromJson(response.body(), listTaskType);
+        assertEquals(List.of(doneTask), actual);
+    }
+
+    @Test
+    @DisplayName("Получить задачи по несуществующему статусу")
+    void getTasksByUnknownStatus() throws IOException, InterruptedException {
+        URI uri = URI.create(BASE_URL + "?status=UNKNOWN");
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Создать повторяющуюся задачу")
+    void createRecurringTask() throws IOException, InterruptedException {
+        RecurringTask standup = new RecurringTask("standup", "daily standup",
+                LocalDateTime.of(2025, 2, 10, 10, 0), Duration.ofMinutes(15), Duration.ofDays(1));
+        URI uri = URI.create(BASE_URL);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(standup))).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+
+        request = HttpRequest.newBuilder(uri).GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Type listTaskType = new TypeToken<ArrayList<Task>>(){}.getType();
+        List<Task> actual = gson.fromJson(response.body(), listTaskType);
+        RecurringTask actualStandup = (RecurringTask) actual.get(1);
+        assertEquals(Duration.ofDays(1), actualStandup.getRepeatInterval());
+        assertNull(actualStandup.getRepeatUntil());
+    }
+
+    @Test
+    @DisplayName("Создать повторяющуюся задачу, которая пересекается с задачей")
+    void createRecurringTaskWithIntersect() throws IOException, InterruptedException {
+        // задача task начинается 2025-02-08T14:00, повторение через неделю попадает на неё
+        RecurringTask review = new RecurringTask("review", "weekly review",
+                task.getStartTime().minusWeeks(1).plusMinutes(10), Duration.ofHours(1), Duration.ofDays(7));
+        URI uri = URI.create(BASE_URL);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(review))).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(406, response.statusCode());
+        assertEquals(1, manager.getAllTasks().size());
+    }
+
+    @Test
+    @DisplayName("Создать повторяющуюся задачу с нулевым интервалом повторения")
+    void createRecurringTaskWithZeroInterval() throws IOException, InterruptedException {
+        String ruleJson = "{\"name\": \"rule\", \"description\": \"\", \"status\": \"NEW\", "
+                + "\"startTime\": \"2025-02-10T10:00\", \"duration\": \"PT0S\", \"repeatInterval\": \"PT0S\"}";
+        URI uri = URI.create(BASE_URL);
+        HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(ruleJson)).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+        assertEquals(1, manager.getAllTasks().size());
+    }
 }
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class EpicTest {
     @Test
@@ -106,6 +107,64 @@ public class EpicTest {
         assertEquals(updatedDuration, epic.getDuration(), "Не обновился duration");
     }
 
+    @Test
+    @DisplayName("Время эпика пересчитывается после удаления крайних подзадач")
+    void setTimeWithRemoveBoundarySubtasks() {
+        Subtask startTask = new Subtask("start task", "",
+                LocalDateTime.of(2025,1,1,0,0), Duration.ofHours(1));
+        Subtask middleTask = new Subtask("middle task", "",
+                LocalDateTime.of(2025,1,2,0,0), Duration.ofHours(2));
+        Subtask endTask = new Subtask("end task", "",
+                LocalDateTime.of(2025,1,3,0,0), Duration.ofHours(3));
+        startTask.setId(1);
+        middleTask.setId(2);
+        endTask.setId(3);
+        Epic epic = new Epic("Epic", "");
+        epic.addSubtask(startTask);
+        epic.addSubtask(middleTask);
+        epic.addSubtask(endTask);
+
+        epic.removeSubtask(startTask);
+        assertEquals(middleTask.getStartTime(), epic.getStartTime(), "Не пересчитался startTime");
+        assertEquals(endTask.getEndTime(), epic.getEndTime());
+        assertEquals(Duration.ofHours(5), epic.getDuration());
+
+        epic.removeSubtask(endTask);
+        assertEquals(middleTask.getStartTime(), epic.getStartTime());
+        assertEquals(middleTask.getEndTime(), epic.getEndTime(), "Не пересчитался endTime");
+        assertEquals(Duration.ofHours(2), epic.getDuration());
+
+        Subtask updatedMiddleTask = new Subtask("middle task", "",
+                LocalDateTime.of(2025,1,5,0,0), Duration.ofHours(1));
+        updatedMiddleTask.setId(2);
+        epic.replaceSubtask(middleTask, updatedMiddleTask);
+        assertEquals(updatedMiddleTask.getStartTime(), epic.getStartTime());
+        assertEquals(updatedMiddleTask.getEndTime(), epic.getEndTime());
+        assertEquals(Duration.ofHours(1), epic.getDuration());
+    }
+
+    @Test
+    void statusWithReplaceSubtask() {
+        Epic epic = new Epic("Epic", "");
+        Subtask subtask1 = new Subtask("subtask1", "");
+        Subtask subtask2 = new Subtask("subtask2", "");
+        subtask1.setId(1);
+        subtask2.setId(2);
+        epic.addSubtask(subtask1);
+        epic.addSubtask(subtask2);
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+
+        Subtask doneSubtask1 = new Subtask("subtask1", "");
+        doneSubtask1.setId(1);
+        doneSubtask1.setStatus(TaskStatus.DONE);
+        epic.replaceSubtask(subtask1, doneSubtask1);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+
+        epic.removeSubtask(subtask2);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(1, epic.getSubtasksId().size());
+    }
+
     @Test
     @DisplayName("Пустой Эпик Начало NULL")
     void emptyEpicStartTimeTest() {
@@ -126,4 +185,49 @@ public class EpicTest {
         Epic epic = new Epic();
         assertNull(epic.getDuration());
     }
-}
\ No newline at end of file
+
+    @Test
+    void clearSubtasks() {
+        Epic epic = new Epic("Epic", "");
+        Subtask subtask = new Subtask("subtask", "", LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofHours(1));
+        subtask.setId(1);
+        subtask.setStatus(TaskStatus.DONE);
+        epic.addSubtask(subtask);
+        epic.clearSubtasks();
+
+        assertTrue(epic.getSubtasksId().isEmpty());
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertNull(epic.getDuration());
+
+        epic.addSubtask(subtask);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(subtask.getEndTime(), epic.getEndTime());
+    }
+
+    @Test
+    @DisplayName("Копия эпика не меняется вместе с эпиком и сама пересчитывает статус и время")
+    void shouldCopyEpic() {
+        Epic epic = new Epic("Epic", "");
+        epic.setId(1);
+        Subtask first = new Subtask("first", "", LocalDateTime.of(2025,1,1,0,0), Duration.ofHours(1));
+        first.setId(2);
+        first.setStatus(TaskStatus.DONE);
+        epic.addSubtask(first);
+        Epic copy = new Epic(epic);
+        Subtask second = new Subtask("second", "", LocalDateTime.of(2025,1,2,0,0), Duration.ofHours(1));
+        second.setId(3);
+        epic.addSubtask(second);
+
+        assertEquals(epic, copy);
+        assertEquals(List.of(2L), copy.getSubtasksId(), "Копия изменилась вместе с эпиком");
+        assertEquals(TaskStatus.DONE, copy.getStatus());
+        assertEquals(first.getEndTime(), copy.getEndTime());
+
+        copy.removeSubtask(first);
+        assertEquals(TaskStatus.NEW, copy.getStatus());
+        assertNull(copy.getStartTime());
+        assertEquals(List.of(2L, 3L), epic.getSubtasksId(), "Эпик изменился вместе с копией");
+    }
+}
@@ -0,0 +1,84 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecurringTaskTest {
+    private final LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+
+    @Test
+    void occurrencesBetween() {
+        RecurringTask rule = new RecurringTask("", "", startTime, Duration.ofMinutes(15), Duration.ofDays(1),
+                startTime.plusDays(3));
+        rule.setId(5);
+
+        List<Task> occurrences = rule.occurrencesBetween(startTime.plusMinutes(1), null).toList();
+        assertEquals(List.of(startTime.plusDays(1), startTime.plusDays(2), startTime.plusDays(3)),
+                occurrences.stream().map(Task::getStartTime).toList());
+        assertEquals(5, occurrences.getFirst().getId());
+        assertEquals(Duration.ofMinutes(15), occurrences.getFirst().getDuration());
+        assertEquals(List.of(startTime), rule.occurrencesBetween(null, startTime.plusDays(1))
+                .map(Task::getStartTime).toList());
+        assertEquals(3, rule.getLastIndex());
+    }
+
+    @Test
+    void occurrencesEndingAfter() {
+        RecurringTask rule = new RecurringTask("", "", startTime, Duration.ofMinutes(15), Duration.ofHours(1));
+
+        assertEquals(List.of(startTime.plusHours(2), startTime.plusHours(3)),
+                rule.occurrencesEndingAfter(startTime.plusHours(2).plusMinutes(10))
+                        .limit(2).map(Task::getStartTime).toList());
+        assertEquals(startTime.plusHours(3), rule.occurrencesEndingAfter(startTime.plusHours(2).plusMinutes(15))
+                .findFirst().orElseThrow().getStartTime());
+    }
+
+    @Test
+    void isIntersectWithTask() {
+        RecurringTask rule = new RecurringTask("", "", startTime, Duration.ofMinutes(15), Duration.ofDays(7));
+
+        assertTrue(rule.isIntersect(new Task("", "", startTime.plusWeeks(50), null)));
+        assertFalse(rule.isIntersect(new Task("", "", startTime.plusWeeks(50).plusMinutes(5), null)));
+        assertTrue(rule.isIntersect(new Task("", "", startTime.plusWeeks(3).minusMinutes(5), Duration.ofMinutes(10))));
+        assertFalse(rule.isIntersect(new Task("", "", startTime.plusWeeks(3).plusMinutes(15), Duration.ofDays(6))));
+        assertFalse(rule.isIntersect(new Task("", "", startTime.minusDays(1), Duration.ofHours(1))));
+        Task task = new Task("", "", startTime.plusDays(14).minusHours(1), Duration.ofHours(2));
+        assertTrue(task.isIntersect(rule), "Пересечение должно быть симметричным");
+    }
+
+    @Test
+    void isIntersectWithRule() {
+        RecurringTask daily = new RecurringTask("", "", startTime, Duration.ofMinutes(15), Duration.ofDays(1));
+        RecurringTask weekly = new RecurringTask("", "", startTime.plusDays(40).plusMinutes(15), Duration.ofHours(1),
+                Duration.ofDays(7));
+        assertFalse(daily.isIntersect(weekly));
+        assertFalse(weekly.isIntersect(daily));
+
+        RecurringTask everyTwoDays = new RecurringTask("", "", startTime.plusDays(1).minusMinutes(10),
+                Duration.ofMinutes(20), Duration.ofDays(2));
+        assertTrue(daily.isIntersect(everyTwoDays));
+
+        RecurringTask bounded = new RecurringTask("", "", startTime.plusDays(1).minusMinutes(10),
+                Duration.ofMinutes(20), Duration.ofDays(2), startTime.plusDays(1).minusMinutes(10));
+        RecurringTask boundedBefore = new RecurringTask("", "", startTime.minusDays(10), Duration.ofMinutes(20),
+                Duration.ofDays(2), startTime.minusDays(1));
+        assertTrue(bounded.isIntersect(daily));
+        assertFalse(daily.isIntersect(boundedBefore));
+    }
+
+    @Test
+    void throwExceptionWhenRuleIsInvalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecurringTask("", "", null, Duration.ofMinutes(15), Duration.ofDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecurringTask("", "", startTime, Duration.ofHours(2), Duration.ofHours(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecurringTask("", "", startTime, Duration.ofHours(1), Duration.ofDays(1),
+                        startTime.minusDays(1)));
+    }
+}
@@ -0,0 +1,127 @@
+package service;
+
+import model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import exceptions.TaskHasIntersectException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 500;
+
+    @BeforeEach
+    @Override
+    void init() {
+        super.init();
+        manager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    @DisplayName("Параллельное создание задач в одном интервале времени")
+    void shouldCreateOnlyOneTaskWhenParallelCreateIntersectedTasks() throws Exception {
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS * TASKS_PER_THREAD; i++) {
+            int minutes = i % 60;
+            results.add(executor.submit(() -> {
+                try {
+                    manager.createNewTask(new Task("", "", startTime.plusMinutes(minutes), Duration.ofHours(1)));
+                    return true;
+                } catch (TaskHasIntersectException exception) {
+                    return false;
+                }
+            }));
+        }
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            created += result.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, created, "Создались пересекающиеся задачи");
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    @DisplayName("Параллельное создание подзадач и чтение задач")
+    void parallelCreateSubtasksAndRead() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            epics.add(manager.createNewEpic(new Epic("epic" + i, "")));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Epic epic = epics.get(i);
+            LocalDateTime epicStartTime = LocalDateTime.of(2025, 1, 1 + i, 0, 0);
+            results.add(executor.submit(() -> {
+                for (int j = 0; j < TASKS_PER_THREAD; j++) {
+                    manager.createNewSubtask(new Subtask("", "", epicStartTime.plusMinutes(j),
+                            Duration.ofMinutes(1), epic.getId()));
+                }
+            }));
+            results.add(executor.submit(() -> {
+                for (int j = 0; j < TASKS_PER_THREAD; j++) {
+                    manager.getEpic(epic.getId());
+                    manager.getAllSubtasks();
+                    manager.getPrioritizedTasks();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * TASKS_PER_THREAD, manager.getAllSubtasks().size());
+        assertEquals(THREADS * TASKS_PER_THREAD, manager.getPrioritizedTasks().size());
+        assertEquals(THREADS, manager.getHistory().size());
+        for (Epic epic : epics) {
+            assertEquals(TASKS_PER_THREAD, epic.getSubtasksId().size());
+            assertEquals(Duration.ofMinutes(TASKS_PER_THREAD), epic.getDuration());
+        }
+    }
+
+    @Test
+    @Override
+    void createNewEpicAndFindById() {
+        manager.createNewEpic(epic);
+
+        assertEquals(1, manager.getAllEpics().size(), "Не добавился epic");
+        assertEquals(epic, manager.getEpic(epic.getId()), "Не находит epic по id");
+        assertNotSame(epic, manager.getEpic(epic.getId()), "Возвращается эпик менеджера, а не копия");
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Выданный эпик не меняется при добавлении подзадачи")
+    void shouldReturnEpicCopies() {
+        manager.createNewEpic(epic);
+        Epic readEpic = manager.getEpic(epic.getId());
+        Epic listedEpic = manager.getAllEpics().getFirst();
+        Epic historyEpic = (Epic) manager.getHistory().getFirst();
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+
+        for (Epic copy : List.of(readEpic, listedEpic, historyEpic)) {
+            assertTrue(copy.getSubtasksId().isEmpty(), "Копия эпика изменилась");
+            assertNull(copy.getStartTime());
+        }
+        Epic updatedEpic = manager.getEpic(epic.getId());
+        assertEquals(List.of(subtask.getId()), updatedEpic.getSubtasksId());
+        assertEquals(subtask.getStartTime(), updatedEpic.getStartTime());
+        assertEquals(subtask.getEndTime(), updatedEpic.getEndTime());
+    }
+}
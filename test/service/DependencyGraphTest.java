@@ -0,0 +1,122 @@
+package service;
+
+import exceptions.DependencyCycleException;
+import model.CriticalPath;
+import model.Dependency;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGraphTest {
+
+    @Test
+    @DisplayName("Ребро против текущего порядка перестраивает только затронутые узлы")
+    void addEdgeAgainstOrder() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(3, 4);
+        graph.addEdge(2, 3);
+        graph.addEdge(4, 5);
+        graph.addEdge(5, 6);
+        graph.addEdge(9, 10);
+        graph.addEdge(10, 1);
+
+        assertValidOrder(graph);
+        assertFalse(graph.addEdge(1, 2), "Повторное ребро не добавляется");
+    }
+
+    @Test
+    void shouldNotChangeGraphWhenEdgeClosesCycle() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        List<Long> order = graph.topologicalOrder();
+
+        assertThrows(DependencyCycleException.class, () -> graph.addEdge(3, 1));
+        assertThrows(DependencyCycleException.class, () -> graph.addEdge(2, 2));
+        assertEquals(order, graph.topologicalOrder());
+        assertEquals(List.of(new Dependency(1, 2), new Dependency(2, 3)), graph.edges());
+    }
+
+    @Test
+    @DisplayName("Порядок корректен при случайных добавлениях и удалениях рёбер")
+    void randomEdgesKeepValidOrder() {
+        DependencyGraph graph = new DependencyGraph();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            long blockerId = random.nextInt(300) + 1;
+            long blockedId = random.nextInt(300) + 1;
+            if (random.nextInt(4) == 0) {
+                graph.removeEdge(blockerId, blockedId);
+            } else if (random.nextInt(50) == 0) {
+                graph.removeNode(blockerId);
+            } else {
+                try {
+                    graph.addEdge(blockerId, blockedId);
+                } catch (DependencyCycleException exception) {
+                    // цикл отклонён, граф не изменился
+                }
+            }
+        }
+        assertValidOrder(graph);
+    }
+
+    @Test
+    void removeNodeRemovesIsolatedNeighbours() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(4, 3);
+        graph.removeNode(3);
+
+        assertEquals(List.of(1L, 2L), graph.topologicalOrder());
+        assertTrue(graph.removeEdge(1, 2));
+        assertTrue(graph.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Критический путь учитывает длительность и время начала")
+    void criticalPath() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        Map<Long, Task> tasks = new HashMap<>();
+        tasks.put(1L, new Task("", "", start, Duration.ofHours(2)));
+        tasks.put(2L, new Task("", "", null, Duration.ofHours(1)));
+        tasks.put(3L, new Task("", "", start, Duration.ofHours(4)));
+        tasks.put(4L, new Task("", "", start.plusHours(10), Duration.ofHours(1)));
+        tasks.put(5L, new Task("", "", null, Duration.ofMinutes(30)));
+        tasks.forEach((id, task) -> task.setId(id));
+        DependencyGraph graph = new DependencyGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 5);
+        graph.addEdge(3, 5);
+        graph.addEdge(4, 5);
+
+        CriticalPath criticalPath = graph.criticalPath(tasks::get);
+        assertEquals(List.of(tasks.get(4L), tasks.get(5L)), criticalPath.getTasks());
+        assertEquals(start.plusHours(10), criticalPath.getStart());
+        assertEquals(start.plusHours(11).plusMinutes(30), criticalPath.getEnd());
+        assertEquals(Duration.ofMinutes(90), criticalPath.getDuration());
+
+        graph.removeNode(4);
+        criticalPath = graph.criticalPath(tasks::get);
+        assertEquals(List.of(tasks.get(3L), tasks.get(5L)), criticalPath.getTasks());
+        assertEquals(start.plusHours(4).plusMinutes(30), criticalPath.getEnd());
+    }
+
+    private static void assertValidOrder(DependencyGraph graph) {
+        List<Long> order = graph.topologicalOrder();
+        for (Dependency dependency : graph.edges()) {
+            assertTrue(order.indexOf(dependency.getBlockerId()) < order.indexOf(dependency.getBlockedId()),
+                    "Нарушен порядок для " + dependency);
+        }
+    }
+}
@@ -7,11 +7,16 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,6 +39,12 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
     void tearDown() {
         try {
             Files.delete(path);
+            Files.deleteIfExists(FileBackedTaskManager.getIdFilePath(path));
+            Files.deleteIfExists(FileBackedTaskManager.getPreviousSnapshotPath(path));
+            Files.deleteIfExists(FileBackedTaskManager.getHistoryFilePath(path));
+            for (int number = 1; number <= 20; number++) {
+                Files.deleteIfExists(FileBackedTaskManager.getDeltaSnapshotPath(path, number));
+            }
         } catch (IOException ex) {
             System.out.println(ex.getMessage());
         }
@@ -358,7 +369,8 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
 
         assertTrue(Files.exists(path), "Файл не сохранился на диске");
         BufferedReader reader = new BufferedReader(new FileReader(path.toString()));
-        assertEquals(expectedTitleString, reader.readLine());
+        // после названий колонок заголовок содержит число записей и их контрольную сумму
+        assertTrue(reader.readLine().startsWith(expectedTitleString + ";records=1;crc32="));
         assertEquals(expectedTaskString, reader.readLine());
         assertFalse(reader.ready(), "В файле есть лишние строки");
 
@@ -390,4 +402,370 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         assertEquals(epic, manager.getAllEpics().getFirst());
         assertEquals(subtask, manager.getAllSubtasks().getFirst());
     }
+
+    @Test
+    @Override
+    void createAll() {
+        super.createAll();
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path);
+
+        assertEquals(manager.getAllTasks(), loadedManager.getAllTasks());
+        assertEquals(manager.getAllSubtasks(), loadedManager.getAllSubtasks());
+    }
+
+    @Test
+    @Override
+    void updateAllSwapTasksTime() {
+        super.updateAllSwapTasksTime();
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path);
+
+        assertEquals(manager.getAllTasks(), loadedManager.getAllTasks());
+        assertEquals("Updated", loadedManager.getAllEpics().getFirst().getName());
+    }
+
+    @Test
+    @DisplayName("Id удалённой задачи не выдаётся повторно после перезагрузки")
+    void shouldNotReuseIdOfRemovedTaskAfterReload() {
+        manager.createNewTask(new Task("", ""));
+        Task lastTask = manager.createNewTask(new Task("", ""));
+        manager.removeTask(lastTask.getId());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path);
+        Task newTask = loadedManager.createNewTask(new Task("", ""));
+
+        assertTrue(newTask.getId() > lastTask.getId());
+        assertTrue(Files.exists(FileBackedTaskManager.getIdFilePath(path)));
+    }
+
+    @Test
+    void shouldLoadDependencies() {
+        Task first = manager.createNewTask(new Task("", ""));
+        Task second = manager.createNewTask(new Task("", ""));
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        manager.addDependency(second.getId(), first.getId());
+        manager.addDependency(subtask.getId(), second.getId());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path);
+        assertEquals(manager.getDependencies(), loadedManager.getDependencies());
+        assertEquals(List.of(subtask, second, first), loadedManager.getTopologicalOrder());
+    }
+
+    @Test
+    void shouldLoadRecurringTask() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+        RecurringTask standup = new RecurringTask("standup", "daily", startTime, Duration.ofMinutes(15),
+                Duration.ofDays(1), startTime.plusDays(30));
+        manager.createNewTask(standup);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path);
+        RecurringTask loaded = (RecurringTask) loadedManager.getTask(standup.getId());
+        assertEquals(standup.getStartTime(), loaded.getStartTime());
+        assertEquals(standup.getRepeatInterval(), loaded.getRepeatInterval());
+        assertEquals(standup.getRepeatUntil(), loaded.getRepeatUntil());
+        assertThrows(TaskHasIntersectException.class, () -> loadedManager.createNewTask(
+                new Task("", "", startTime.plusDays(10), Duration.ofMinutes(5))));
+    }
+
+    @Test
+    @DisplayName("Повреждённый файл заменяется предыдущим снимком")
+    void shouldLoadPreviousSnapshotWhenFileCorrupted() throws IOException {
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        Path previousPath = FileBackedTaskManager.getPreviousSnapshotPath(path);
+        assertEquals(2, Files.readAllLines(previousPath).size(), "Предыдущий снимок не сохранён");
+        // обрыв записи последней строки
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertFalse(manager.isLoadedFromPreviousSnapshot());
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path);
+        assertTrue(loadedManager.isLoadedFromPreviousSnapshot());
+        assertEquals(List.of(task), loadedManager.getAllTasks());
+        assertTrue(loadedManager.getAllEpics().isEmpty());
+        FileBackedTaskManager reloadedManager = FileBackedTaskManager.loadFromFile(path);
+        assertEquals(List.of(task), reloadedManager.getAllTasks(), "Повреждённый файл не заменён предыдущим снимком");
+        assertFalse(reloadedManager.isLoadedFromPreviousSnapshot());
+    }
+
+    @Test
+    @DisplayName("Пустой или обрезанный в заголовке файл заменяется предыдущим снимком")
+    void shouldLoadPreviousSnapshotWhenFileTruncated() throws IOException {
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        Files.write(path, new byte[0]);
+
+        assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(path).getAllTasks());
+        assertTrue(Files.size(path) > 0, "Пустой файл не заменён предыдущим снимком");
+
+        Files.writeString(path, "id,type,na");
+        assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(path).getAllTasks());
+
+        Files.delete(FileBackedTaskManager.getPreviousSnapshotPath(path));
+        Files.writeString(path, "id,type,na");
+        assertThrows(ManagerLoadFileException.class, () -> FileBackedTaskManager.loadFromFile(path));
+    }
+
+    @Test
+    @DisplayName("Несовпадение контрольной суммы без предыдущего снимка приводит к исключению")
+    void throwExceptionWhenChecksumMismatch() throws IOException {
+        manager.createNewTask(task);
+        String content = Files.readString(path);
+        Files.writeString(path, content.replace("Task1_Name", "Task1_Nbme"));
+
+        assertThrows(ManagerLoadFileException.class, () -> FileBackedTaskManager.loadFromFile(path));
+    }
+
+    @Test
+    @DisplayName("Двоичный снимок сохраняет все виды записей")
+    void shouldLoadBinarySnapshot() {
+        StorageOptions binary = StorageOptions.defaults().withSnapshotFormat(StorageOptions.SnapshotFormat.BINARY);
+        manager = FileBackedTaskManager.loadFromFile(path, binary);
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+        Task named = manager.createNewTask(new Task("Имя, с запятой", null, startTime.minusDays(1), null));
+        manager.createNewTask(task);
+        RecurringTask standup = new RecurringTask("standup", "daily", startTime, Duration.ofMinutes(15),
+                Duration.ofDays(1), null);
+        manager.createNewTask(standup);
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        subtask.setStatus(TaskStatus.DONE);
+        manager.createNewSubtask(subtask);
+        manager.addDependency(subtask.getId(), task.getId());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path, binary);
+        assertEquals(manager.getAllTasks(), loadedManager.getAllTasks());
+        assertEquals(List.of(subtask), loadedManager.getAllSubtasks());
+        assertEquals(TaskStatus.DONE, loadedManager.getEpic(epic.getId()).getStatus());
+        assertEquals(manager.getDependencies(), loadedManager.getDependencies());
+        assertEquals("Имя, с запятой", loadedManager.getTask(named.getId()).getName());
+        assertNull(loadedManager.getTask(named.getId()).getDescription());
+        assertEquals(subtask.getDuration(), loadedManager.getSubtask(subtask.getId()).getDuration());
+        assertTrue(((RecurringTask) loadedManager.getTask(standup.getId())).isUnbounded());
+    }
+
+    @Test
+    @DisplayName("Двоичный и CSV снимки переводятся друг в друга экспортом")
+    void shouldExportSnapshotInOtherFormat() throws IOException {
+        Path exportPath = Paths.get("test", "fileBackedTaskManagerTest.export");
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        try {
+            manager.exportSnapshot(exportPath, StorageOptions.SnapshotFormat.BINARY);
+            FileBackedTaskManager binaryManager = FileBackedTaskManager.loadFromFile(exportPath);
+            assertEquals(List.of(task), binaryManager.getAllTasks());
+            assertEquals(List.of(epic), binaryManager.getAllEpics());
+
+            binaryManager.exportSnapshot(path, StorageOptions.SnapshotFormat.CSV);
+            assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(path).getAllTasks());
+            // повреждённый двоичный файл без предыдущего снимка не загружается
+            byte[] bytes = Files.readAllBytes(exportPath);
+            bytes[bytes.length - 1]++;
+            Files.write(exportPath, bytes);
+            assertThrows(ManagerLoadFileException.class, () -> FileBackedTaskManager.loadFromFile(exportPath));
+        } finally {
+            Files.deleteIfExists(exportPath);
+            Files.deleteIfExists(FileBackedTaskManager.getIdFilePath(exportPath));
+        }
+    }
+
+    @Test
+    @DisplayName("Проверка после загрузки находит пересечения и повторяющиеся id")
+    void shouldVerifyTasksAfterLoad() throws IOException {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+        Task first = new Task("first", "", startTime, Duration.ofHours(2));
+        first.setId(1);
+        Task second = new Task("second", "", startTime.plusHours(1), Duration.ofHours(1));
+        second.setId(2);
+        Files.write(path, List.of("id,type,name,status,description,startTime,duration,epic",
+                manager.toString(first), manager.toString(second)));
+
+        assertThrows(TaskHasIntersectException.class, () -> FileBackedTaskManager.loadFromFile(path));
+        FileBackedTaskManager unchecked = FileBackedTaskManager.loadFromFile(path,
+                StorageOptions.defaults().withVerifyOnLoad(false));
+        assertEquals(List.of(first, second), unchecked.getAllTasks());
+
+        first.setId(2);
+        epic.setId(2);
+        Files.write(path, List.of("id,type,name,status,description,startTime,duration,epic",
+                manager.toString(first), manager.toString(epic)));
+        assertThrows(ManagerCreateTaskException.class, () -> FileBackedTaskManager.loadFromFile(path));
+        Task other = new Task("other", "");
+        other.setId(2);
+        Files.write(path, List.of("id,type,name,status,description,startTime,duration,epic",
+                manager.toString(first), manager.toString(other)));
+        assertThrows(ManagerCreateTaskException.class, () -> FileBackedTaskManager.loadFromFile(path));
+    }
+
+    @Test
+    @DisplayName("Параллельная загрузка делит файл по строкам и восстанавливает те же задачи")
+    void shouldLoadInParallel() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+        manager.createNewEpic(epic);
+        List<Task> batch = new ArrayList<>();
+        // файл больше части, которую разбирает один поток
+        for (int i = 0; i < 30_000; i++) {
+            batch.add(i % 3 == 0 ? new Subtask("subtask " + i, "description " + i, startTime.plusHours(i),
+                    Duration.ofMinutes(30), epic.getId()) : new Task("task " + i, "description " + i));
+        }
+        manager.createAll(batch);
+        Task blocker = batch.get(1);
+        manager.addDependency(batch.get(0).getId(), blocker.getId());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path,
+                StorageOptions.defaults().withParallelLoad(true));
+        assertEquals(manager.getAllTasks(), loadedManager.getAllTasks());
+        assertEquals(manager.getAllSubtasks(), loadedManager.getAllSubtasks());
+        assertEquals(List.copyOf(manager.getPrioritizedTasks()), List.copyOf(loadedManager.getPrioritizedTasks()));
+        assertEquals(10_000, loadedManager.getEpic(epic.getId()).getSubtasksId().size());
+        assertEquals(manager.getDependencies(), loadedManager.getDependencies());
+        assertTrue(loadedManager.getLoadDuration().toNanos() > 0);
+    }
+
+    @Test
+    @DisplayName("Сжатый снимок любого формата загружается без указания сжатия")
+    void shouldLoadCompressedSnapshot() throws IOException {
+        manager = FileBackedTaskManager.loadFromFile(path, StorageOptions.defaults().withCompression(true));
+        Task longTask = manager.createNewTask(new Task("long", "description ".repeat(1000)));
+        manager.createNewEpic(epic);
+        byte[] bytes = Files.readAllBytes(path);
+        assertEquals((byte) 0x1f, bytes[0]);
+        assertEquals((byte) 0x8b, bytes[1]);
+        assertTrue(bytes.length < 1000, "Снимок не сжат");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path);
+        assertEquals(longTask.getDescription(), loadedManager.getTask(longTask.getId()).getDescription());
+        assertEquals(List.of(epic), loadedManager.getAllEpics());
+
+        manager = FileBackedTaskManager.loadFromFile(path, StorageOptions.defaults().withCompression(true)
+                .withSnapshotFormat(StorageOptions.SnapshotFormat.BINARY));
+        manager.createNewTask(task);
+        assertEquals(manager.getAllTasks(), FileBackedTaskManager.loadFromFile(path).getAllTasks());
+    }
+
+    @Test
+    @DisplayName("Сохранение пишет дельта-снимок, цепочка объединяется с файлом задач при загрузке")
+    void shouldWriteDeltaSnapshots() throws IOException {
+        StorageOptions options = StorageOptions.defaults().withDeltaSnapshots(3);
+        manager = FileBackedTaskManager.loadFromFile(path, options);
+        Task first = manager.createNewTask(new Task("first", ""));
+        byte[] snapshot = Files.readAllBytes(path);
+        Task second = manager.createNewTask(new Task("second", ""));
+        manager.createNewEpic(epic);
+        Task updated = new Task("updated", "");
+        updated.setId(first.getId());
+        manager.updateTask(updated);
+        assertArrayEquals(snapshot, Files.readAllBytes(path), "Файл задач перезаписан");
+        assertTrue(Files.exists(FileBackedTaskManager.getDeltaSnapshotPath(path, 3)));
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path, options);
+        assertEquals(manager.getAllTasks(), loadedManager.getAllTasks());
+        assertEquals("updated", loadedManager.getTask(first.getId()).getName());
+        assertEquals(List.of(epic), loadedManager.getAllEpics());
+
+        // цепочка достигла предела, следующее сохранение пишет файл задач целиком
+        loadedManager.removeTask(second.getId());
+        assertFalse(Files.exists(FileBackedTaskManager.getDeltaSnapshotPath(path, 1)));
+        assertEquals(List.of(updated), FileBackedTaskManager.loadFromFile(path).getAllTasks());
+    }
+
+    @Test
+    @DisplayName("Дельта-снимки переносят удаление задач, эпиков и зависимостей")
+    void shouldMergeRemovalsFromDeltaSnapshots() {
+        StorageOptions options = StorageOptions.defaults().withDeltaSnapshots(20);
+        manager = FileBackedTaskManager.loadFromFile(path, options);
+        Task first = manager.createNewTask(new Task("first", ""));
+        Task second = manager.createNewTask(new Task("second", ""));
+        Task third = manager.createNewTask(new Task("third", ""));
+        manager.createNewTask(new Task("fourth", ""));
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        manager.addDependency(second.getId(), first.getId());
+        manager.addDependency(third.getId(), second.getId());
+        manager.addDependency(subtask.getId(), third.getId());
+        manager.removeDependency(second.getId(), first.getId());
+        manager.removeTask(third.getId());
+        manager.removeEpic(epic.getId());
+        manager.addDependency(first.getId(), second.getId());
+        assertTrue(Files.exists(FileBackedTaskManager.getDeltaSnapshotPath(path, 12)));
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path, options);
+        assertEquals(manager.getAllTasks(), loadedManager.getAllTasks());
+        assertTrue(loadedManager.getAllEpics().isEmpty());
+        assertTrue(loadedManager.getAllSubtasks().isEmpty());
+        assertEquals(List.of(new Dependency(first.getId(), second.getId())), loadedManager.getDependencies());
+    }
+
+    @Test
+    @DisplayName("Дельта-снимок другого файла задач не загружается и удаляется")
+    void shouldIgnoreStaleDeltaSnapshot() throws IOException {
+        StorageOptions options = StorageOptions.defaults().withDeltaSnapshots(1);
+        manager = FileBackedTaskManager.loadFromFile(path, options);
+        manager.createNewTask(new Task("first", ""));
+        manager.createNewTask(new Task("second", ""));
+        Path firstDelta = FileBackedTaskManager.getDeltaSnapshotPath(path, 1);
+        byte[] staleDelta = Files.readAllBytes(firstDelta);
+        manager.createNewTask(new Task("third", ""));
+        assertFalse(Files.exists(firstDelta), "Файл задач записан целиком, цепочка удаляется");
+
+        // прерванное удаление цепочки оставило дельта-снимки прежнего файла задач
+        Files.write(firstDelta, staleDelta);
+        Files.write(FileBackedTaskManager.getDeltaSnapshotPath(path, 2), staleDelta);
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(path, options);
+        assertEquals(manager.getAllTasks(), loadedManager.getAllTasks());
+        assertFalse(Files.exists(firstDelta));
+        assertFalse(Files.exists(FileBackedTaskManager.getDeltaSnapshotPath(path, 2)));
+    }
+
+    @Test
+    @DisplayName("История просмотров восстанавливается после перезапуска без удалённых задач")
+    void shouldRestoreHistory() throws IOException {
+        StorageOptions options = StorageOptions.defaults().withPersistentHistory(true);
+        manager = FileBackedTaskManager.loadFromFile(path, options);
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        manager.getTask(task.getId());
+        manager.getEpic(epic.getId());
+        manager.getSubtask(subtask.getId());
+        manager.getTask(task.getId());
+        manager.close();
+        Path historyPath = FileBackedTaskManager.getHistoryFilePath(path);
+        assertEquals(List.of("1", "2", "3", "1"), Files.readAllLines(historyPath));
+
+        manager = FileBackedTaskManager.loadFromFile(path, options);
+        assertEquals(List.of(epic, subtask, task), manager.getHistory());
+        manager.removeSubtask(subtask.getId());
+        manager.close();
+        // оборванная запись в конце файла отбрасывается
+        Files.writeString(historyPath, "1", StandardOpenOption.APPEND);
+
+        manager = FileBackedTaskManager.loadFromFile(path, options);
+        assertEquals(List.of(epic, task), manager.getHistory());
+        manager.getEpic(epic.getId());
+        manager.close();
+        assertEquals(List.of(task, epic), FileBackedTaskManager.loadFromFile(path, options).getHistory());
+        assertTrue(FileBackedTaskManager.loadFromFile(path).getHistory().isEmpty());
+        assertFalse(Files.exists(historyPath), "Файл истории не удалён без сохранения истории");
+    }
+
+    @Test
+    @DisplayName("Файл истории сжимается до списка id истории")
+    void shouldCompactHistory() throws IOException {
+        StorageOptions options = StorageOptions.defaults().withPersistentHistory(true);
+        manager = FileBackedTaskManager.loadFromFile(path, options);
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        for (int i = 0; i < 1000; i++) {
+            manager.getTask(task.getId());
+        }
+        manager.getEpic(epic.getId());
+        manager.close();
+
+        assertEquals(List.of("1", "2"), Files.readAllLines(FileBackedTaskManager.getHistoryFilePath(path)));
+        assertEquals(List.of(task, epic), FileBackedTaskManager.loadFromFile(path, options).getHistory());
+    }
 }
@@ -48,7 +48,7 @@ public class HistoryManagerTest {
         Task createdTask = manager.createNewTask(task);
         Task saved = manager.getTask(createdTask.getId()); // get task, add in history
         String name = saved.getName();
-        int id = createdTask.getId();
+        long id = createdTask.getId();
 
         // update task in TaskManager
         Task taskForUpdate = new Task("upd_task_name", "upd_task_description");
@@ -148,4 +148,19 @@ public class HistoryManagerTest {
         assertEquals(2, history.size(), "Размер истории должен уменьшиться");
         assertFalse(history.contains(task3), "Задача не удалилась из истории");
     }
+
+    @Test
+    void removeIfKeepsOrderOfOtherTasks() {
+        Task task2 = new Task();
+        task2.setId(4);
+        historyManager.addTask(task);
+        historyManager.addTask(subtask);
+        historyManager.addTask(epic);
+        historyManager.addTask(task2);
+        historyManager.removeIf(item -> item.getType() == TaskType.TASK);
+
+        assertEquals(List.of(subtask, epic), historyManager.getHistory());
+        historyManager.addTask(task);
+        assertEquals(List.of(subtask, epic, task), historyManager.getHistory());
+    }
 }
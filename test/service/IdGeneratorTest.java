@@ -0,0 +1,104 @@
+package service;
+
+import model.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 10_000;
+    private final Path path = Paths.get("test", "idGeneratorTest.id");
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    void atomicGeneratorStartsFromOneAndSkipsUsedIds() {
+        AtomicIdGenerator generator = new AtomicIdGenerator();
+        assertEquals(1, generator.nextId());
+        assertEquals(2, generator.nextId());
+
+        generator.skipTo(Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE + 1L, generator.nextId());
+        generator.skipTo(10);
+        assertEquals(Integer.MAX_VALUE + 2L, generator.nextId());
+    }
+
+    @Test
+    @DisplayName("Параллельные генераторы блоков над одним источником не выдают одинаковые id")
+    void blockGeneratorsOverSharedSourceGiveUniqueIds() throws Exception {
+        AtomicIdGenerator source = new AtomicIdGenerator();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            IdGenerator generator = new BlockIdGenerator(source, 64);
+            results.add(executor.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int j = 0; j < IDS_PER_THREAD; j++) {
+                    ids.add(generator.nextId());
+                }
+                return ids;
+            }));
+        }
+        Set<Long> allIds = new HashSet<>();
+        for (Future<List<Long>> result : results) {
+            allIds.addAll(result.get());
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * IDS_PER_THREAD, allIds.size());
+    }
+
+    @Test
+    void blockGeneratorTakesNextBlockAfterSkippedId() {
+        AtomicIdGenerator source = new AtomicIdGenerator();
+        BlockIdGenerator generator = new BlockIdGenerator(source, 10);
+        assertEquals(1, generator.nextId());
+
+        generator.skipTo(5);
+        assertEquals(11, generator.nextId());
+        assertEquals(12, generator.nextId());
+        assertThrows(IllegalArgumentException.class, () -> new BlockIdGenerator(source, 0));
+    }
+
+    @Test
+    @DisplayName("Id из файла не повторяются после перезапуска")
+    void fileSourceKeepsReservedIdsAfterRestart() {
+        BlockIdGenerator generator = new BlockIdGenerator(new FileIdBlockSource(path), 100);
+        assertEquals(1, generator.nextId());
+        assertEquals(2, generator.nextId());
+
+        BlockIdGenerator restartedGenerator = new BlockIdGenerator(new FileIdBlockSource(path), 100);
+        assertEquals(101, restartedGenerator.nextId());
+    }
+
+    @Test
+    void managersWithSharedSourceGiveUniqueIds() {
+        AtomicIdGenerator source = new AtomicIdGenerator();
+        TaskManager firstManager = new InMemoryTaskManager(new BlockIdGenerator(source, 100));
+        TaskManager secondManager = new InMemoryTaskManager(new BlockIdGenerator(source, 100));
+
+        Task firstTask = firstManager.createNewTask(new Task("", ""));
+        Task secondTask = secondManager.createNewTask(new Task("", ""));
+
+        assertEquals(1, firstTask.getId());
+        assertEquals(101, secondTask.getId());
+    }
+}
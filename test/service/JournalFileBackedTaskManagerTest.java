@@ -0,0 +1,300 @@
+package service;
+
+import exceptions.ManagerSaveException;
+import model.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private final Path path = Paths.get("test", "journalTaskManagerTest.csv");
+    private final Path journalPath = FileBackedTaskManager.getJournalFilePath(path);
+
+    @BeforeEach
+    @Override
+    void init() {
+        manager = load();
+        super.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        manager.close();
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(journalPath);
+        Files.deleteIfExists(FileBackedTaskManager.getIdFilePath(path));
+        Files.deleteIfExists(FileBackedTaskManager.getPreviousSnapshotPath(path));
+        Files.deleteIfExists(FileBackedTaskManager.getDeltaSnapshotPath(path, 1));
+        for (Path segment : Journal.getSegments(journalPath)) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    private FileBackedTaskManager load() {
+        return FileBackedTaskManager.loadFromFile(path, StorageOptions.defaults().withJournal(true));
+    }
+
+    private FileBackedTaskManager reload(StorageOptions options) {
+        manager.close();
+        manager = FileBackedTaskManager.loadFromFile(path, options.withJournal(true));
+        return manager;
+    }
+
+    private FileBackedTaskManager reload() {
+        manager.close();
+        manager = load();
+        return manager;
+    }
+
+    @Test
+    @DisplayName("Изменение дописывается в журнал, файл задач не перезаписывается")
+    void shouldAppendChangeToJournal() throws IOException {
+        manager.createNewTask(task);
+        String createRecord = "1,PUT," + manager.toString(task);
+        task.setDescription("new description");
+        manager.updateTask(task);
+
+        assertEquals(0, Files.size(path), "Файл задач перезаписан");
+        assertEquals(List.of(createRecord, "2,PUT," + manager.toString(task)), Files.readAllLines(journalPath));
+    }
+
+    @Test
+    @DisplayName("После перезапуска журнал применяется к файлу задач")
+    void shouldReplayJournal() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 5, 1, 10, 0);
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        Task first = new Task("first", "", startTime, Duration.ofHours(1));
+        Task second = new Task("second", "", startTime.plusHours(1), Duration.ofHours(1));
+        manager.createAll(List.of(first, second));
+        // задачи пакета меняются временем, по одной такие изменения не применить
+        Task updatedFirst = new Task("first", "", startTime.plusHours(1), Duration.ofHours(1));
+        updatedFirst.setId(first.getId());
+        Task updatedSecond = new Task("second", "", startTime, Duration.ofHours(1));
+        updatedSecond.setId(second.getId());
+        manager.updateAll(List.of(updatedFirst, updatedSecond));
+        manager.addDependency(subtask.getId(), task.getId());
+        manager.addDependency(updatedSecond.getId(), updatedFirst.getId());
+        manager.removeDependency(subtask.getId(), task.getId());
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        manager.removeTask(task.getId());
+
+        FileBackedTaskManager loaded = reload();
+        assertEquals(List.of(updatedFirst, updatedSecond), loaded.getAllTasks());
+        assertEquals(startTime.plusHours(1), loaded.getTask(updatedFirst.getId()).getStartTime());
+        assertEquals(List.of(subtask), loaded.getAllSubtasks());
+        assertEquals(TaskStatus.DONE, loaded.getEpic(epic.getId()).getStatus());
+        assertEquals(List.of(new Dependency(updatedSecond.getId(), updatedFirst.getId())), loaded.getDependencies());
+
+        loaded.clearAllEpics();
+        assertTrue(reload().getAllSubtasks().isEmpty());
+        assertTrue(manager.getAllEpics().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Контрольная точка переносит журнал в файл задач")
+    void shouldCheckpoint() throws IOException {
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        List<String> recordsBeforeCheckpoint = Files.readAllLines(journalPath);
+        manager.checkpoint();
+
+        assertEquals(0, Files.size(journalPath), "Журнал не очищен");
+        assertEquals("2,JOURNAL", Files.readAllLines(path).getLast());
+        // остановка между записью файла задач и очисткой журнала: записи с номером до 2 уже в файле
+        Files.write(journalPath, recordsBeforeCheckpoint);
+        manager.removeTask(task.getId());
+
+        FileBackedTaskManager loaded = reload();
+        assertTrue(loaded.getAllTasks().isEmpty());
+        assertEquals(List.of(epic), loaded.getAllEpics());
+    }
+
+    @Test
+    @DisplayName("Контрольная точка пишет дельта-снимок с изменениями после прошлой контрольной точки")
+    void shouldCheckpointToDeltaSnapshot() throws IOException {
+        StorageOptions options = StorageOptions.defaults().withDeltaSnapshots(5);
+        reload(options);
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        manager.checkpoint();
+        byte[] snapshot = Files.readAllBytes(path);
+        manager.removeTask(task.getId());
+        manager.createNewTask(new Task("other", ""));
+        manager.checkpoint();
+
+        Path delta = FileBackedTaskManager.getDeltaSnapshotPath(path, 1);
+        assertArrayEquals(snapshot, Files.readAllBytes(path), "Файл задач перезаписан");
+        assertEquals("5,JOURNAL", Files.readAllLines(delta).getLast());
+        assertEquals(0, Files.size(journalPath), "Журнал не очищен");
+        manager.createNewSubtask(new Subtask("subtask", "", epic.getId()));
+
+        FileBackedTaskManager loaded = reload(options);
+        assertEquals("other", loaded.getAllTasks().getFirst().getName());
+        assertEquals(2, loaded.getAllSubtasks().size());
+    }
+
+    @Test
+    @DisplayName("Фоновая контрольная точка запускается по размеру журнала и удаляет закрытые сегменты")
+    void shouldCheckpointInBackgroundBySize() throws Exception {
+        reload(StorageOptions.defaults().withCheckpointLogSize(1));
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (manager.getCheckpointDuration().isZero() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertFalse(manager.getCheckpointDuration().isZero(), "Контрольная точка не выполнена");
+        manager.checkpoint();
+        assertEquals("2,JOURNAL", Files.readAllLines(path).getLast());
+        assertTrue(Journal.getSegments(journalPath).isEmpty(), "Сегменты журнала не удалены");
+        assertEquals(List.of(task), reload().getAllTasks());
+        assertEquals(List.of(epic), manager.getAllEpics());
+    }
+
+    @Test
+    @DisplayName("Ошибка фоновой контрольной точки возвращается менеджером и при закрытии")
+    void shouldReportBackgroundCheckpointFailure() throws Exception {
+        reload(StorageOptions.defaults().withCheckpointLogSize(1));
+        // файл задач нельзя заменить непустой папкой на его месте
+        Path saved = Files.move(path, path.resolveSibling(path.getFileName() + ".saved"));
+        Path blocker = Files.createDirectory(path).resolve("blocker");
+        Files.createFile(blocker);
+        try {
+            manager.createNewTask(task);
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (manager.getCheckpointFailure() == null && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertInstanceOf(ManagerSaveException.class, manager.getCheckpointFailure());
+            ManagerSaveException exception = assertThrows(ManagerSaveException.class, manager::close);
+            assertSame(manager.getCheckpointFailure(), exception.getCause());
+        } finally {
+            Files.delete(blocker);
+            Files.delete(path);
+            Files.move(saved, path);
+            // прежний снимок скопирован из папки пустой папкой
+            Files.deleteIfExists(FileBackedTaskManager.getPreviousSnapshotPath(path));
+            Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".tmp"));
+        }
+        manager = load();
+        assertEquals(List.of(task), manager.getAllTasks(), "Изменения потеряны");
+    }
+
+    @Test
+    @DisplayName("Закрытый сегмент журнала применяется при запуске раньше текущего журнала")
+    void shouldReplaySealedSegment() throws IOException {
+        manager.createNewTask(task);
+        manager.close();
+        // остановка между закрытием сегмента и записью файла задач
+        Files.move(journalPath, Journal.getSegmentPath(journalPath, 1));
+        manager = load();
+        manager.createNewEpic(epic);
+
+        FileBackedTaskManager loaded = reload();
+        assertEquals(List.of(task), loaded.getAllTasks());
+        assertEquals(List.of(epic), loaded.getAllEpics());
+        loaded.checkpoint();
+        assertTrue(Journal.getSegments(journalPath).isEmpty(), "Сегменты журнала не удалены");
+        assertEquals(List.of(task), reload().getAllTasks());
+    }
+
+    @Test
+    @DisplayName("Оборванная запись в конце журнала отбрасывается")
+    void shouldDropTornRecord() throws IOException {
+        manager.createNewTask(task);
+        manager.close();
+        Files.writeString(journalPath, "2,PUT,5,TA", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = load();
+        manager = loaded;
+        assertEquals(List.of(task), loaded.getAllTasks());
+        loaded.createNewEpic(epic);
+        assertEquals(List.of(epic), reload().getAllEpics());
+    }
+
+    @Test
+    @DisplayName("Перевод строки и запятые в названии не разрывают запись журнала")
+    void shouldReplayMultilineName() {
+        Task multiline = new Task("first line,\nsecond \"line\"", "null");
+        manager.createNewTask(multiline);
+
+        Task loaded = reload().getAllTasks().getFirst();
+        assertEquals("first line,\nsecond \"line\"", loaded.getName());
+        assertEquals("null", loaded.getDescription());
+    }
+
+    @Test
+    @DisplayName("Без режима журнала журнал переносится в файл задач и удаляется")
+    void shouldMoveJournalToFileWithoutJournalMode() {
+        manager.createNewTask(task);
+        manager.close();
+
+        manager = FileBackedTaskManager.loadFromFile(path);
+        assertEquals(List.of(task), manager.getAllTasks());
+        assertFalse(Files.exists(journalPath));
+        assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(path).getAllTasks());
+    }
+
+    @Test
+    @DisplayName("Групповой коммит записывает все изменения, sync ждёт их сброса на диск")
+    void shouldWriteGroupCommit() throws IOException {
+        reload(StorageOptions.defaults()
+                .withGroupCommit(Duration.ofMillis(20))
+                .withFsyncPolicy(StorageOptions.FsyncPolicy.EVERY_COMMIT));
+        for (int i = 0; i < 100; i++) {
+            manager.createNewTask(new Task("task" + i, ""));
+        }
+        manager.sync().join();
+
+        assertEquals(100, Files.readAllLines(journalPath).size());
+        assertEquals(100, reload().getAllTasks().size());
+    }
+
+    @Test
+    @DisplayName("Закрытие не ждёт окно группировки и записывает накопленные изменения")
+    void shouldWritePendingGroupOnClose() {
+        reload(StorageOptions.defaults()
+                .withGroupCommit(Duration.ofHours(1))
+                .withFsyncPolicy(StorageOptions.FsyncPolicy.PERIODIC)
+                .withFsyncInterval(Duration.ofMillis(10)));
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+
+        FileBackedTaskManager loaded = reload();
+        assertEquals(List.of(task), loaded.getAllTasks());
+        assertEquals(List.of(epic), loaded.getAllEpics());
+    }
+
+    @Test
+    @DisplayName("Без группового коммита запись идёт в вызывающем потоке при любой политике")
+    void shouldWriteSynchronouslyWithFsyncPolicy() throws IOException {
+        reload(StorageOptions.defaults().withFsyncPolicy(StorageOptions.FsyncPolicy.PERIODIC));
+        manager.createNewTask(task);
+        assertEquals(1, Files.readAllLines(journalPath).size());
+        assertTrue(manager.sync().isDone());
+
+        assertThrows(IllegalArgumentException.class, () -> StorageOptions.defaults().withGroupCommit(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> StorageOptions.defaults().withFsyncInterval(Duration.ZERO));
+    }
+}
@@ -0,0 +1,92 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void putGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertNull(map.put(1, "one"));
+        assertEquals("one", map.put(1, "first"));
+        map.put(-5, "minus five");
+
+        assertEquals(2, map.size());
+        assertEquals("first", map.get(1));
+        assertEquals("minus five", map.get(-5));
+        assertNull(map.get(2));
+        assertTrue(map.containsKey(-5));
+
+        assertEquals("first", map.remove(1));
+        assertNull(map.remove(1));
+        assertFalse(map.containsKey(1));
+        assertEquals(1, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(3, null));
+    }
+
+    @Test
+    @DisplayName("Значения в порядке возрастания последовательных id")
+    void valuesOfSequentialKeys() {
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            map.put(i, i);
+            expected.add(i);
+        }
+
+        assertEquals(expected, map.values());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertTrue(map.values().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Совпадает с HashMap при случайных операциях с коллизиями")
+    void shouldWorkAsHashMapWithCollisions() {
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // ключи кратны 1024, чтобы попадать в одни и те же ячейки
+            long key = random.nextInt(2000) * 1024L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        List<Integer> actualValues = map.values();
+        actualValues.sort(null);
+        List<Integer> expectedValues = new ArrayList<>(expected.values());
+        expectedValues.sort(null);
+        assertEquals(expectedValues, actualValues);
+    }
+
+    @Test
+    @DisplayName("Ключи, различающиеся только старшими битами")
+    void keysBeyondIntRange() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        long key = (1L << 40) + 7;
+        map.put(key, "big");
+        map.put(key + 1, "big plus one");
+        map.put(0, "zero");
+
+        assertEquals("big", map.get(key));
+        assertEquals("big plus one", map.get(key + 1));
+        assertEquals("zero", map.get(0));
+        assertNull(map.get((int) key));
+        assertEquals("big", map.remove(key));
+        assertEquals("big plus one", map.get(key + 1));
+    }
+}
@@ -33,6 +33,18 @@ public class ManagersTest {
                 "Менеджер задач не добавляет задачи");
     }
 
+    @Test
+    void shouldReturnReadyConcurrentTaskManager() {
+        TaskManager taskManager = Managers.getConcurrent();
+
+        assertInstanceOf(ConcurrentTaskManager.class, taskManager,
+                "Класс отличается от ConcurrentTaskManager");
+
+        taskManager.createNewTask(new Task());
+        assertEquals(1, taskManager.getAllTasks().size(),
+                "Менеджер задач не добавляет задачи");
+    }
+
     @Test
     void getFileBackedTaskManager() throws IOException {
         Path path = Path.of("ManagersTest.csv");
@@ -46,5 +58,7 @@ public class ManagersTest {
                 "Менеджер задач не добавляет задачи");
 
         Files.delete(path);
+        Files.delete(FileBackedTaskManager.getIdFilePath(path));
+        Files.deleteIfExists(FileBackedTaskManager.getPreviousSnapshotPath(path));
     }
 }
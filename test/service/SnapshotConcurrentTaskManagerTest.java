@@ -0,0 +1,92 @@
+package service;
+
+import model.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @BeforeEach
+    @Override
+    void init() {
+        super.init();
+        manager = Managers.getConcurrentWithSnapshotReads();
+    }
+
+    @Test
+    @DisplayName("Без записи читается один и тот же снимок")
+    void shouldReturnSameSnapshotWithoutWrites() {
+        manager.createNewTask(task);
+        List<Task> tasks = manager.getAllTasks();
+
+        assertSame(tasks, manager.getAllTasks(), "Список задач копируется при каждом чтении");
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(new Task()));
+    }
+
+    @Test
+    @DisplayName("Запись публикует новый снимок, старый не меняется")
+    void shouldPublishNewSnapshotAfterWrite() {
+        manager.createNewEpic(epic);
+        long version = manager.getSnapshotVersion();
+        List<Epic> epics = manager.getAllEpics();
+        List<Subtask> subtasks = manager.getAllSubtasks();
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+
+        assertEquals(version + 1, manager.getSnapshotVersion());
+        assertTrue(subtasks.isEmpty(), "Изменился ранее выданный снимок");
+        assertEquals(List.of(subtask), manager.getAllSubtasks());
+        // подзадача меняет эпик, в снимке публикуется новая копия эпика
+        assertTrue(epics.getFirst().getSubtasksId().isEmpty(), "Изменился эпик ранее выданного снимка");
+        assertEquals(List.of(subtask.getId()), manager.getAllEpics().getFirst().getSubtasksId());
+
+        List<Epic> epicsAfterSubtask = manager.getAllEpics();
+        manager.createNewTask(task);
+        assertSame(epicsAfterSubtask, manager.getAllEpics(), "Список эпиков не менялся и не должен пересобираться");
+    }
+
+    @Test
+    @DisplayName("Запись подзадачи копирует только её эпик, копии других эпиков переходят в новый снимок")
+    void shouldCopyOnlyEpicOfWrittenSubtask() {
+        manager.createNewEpic(epic);
+        Epic otherEpic = manager.createNewEpic(new Epic("other", ""));
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        List<Epic> epics = manager.getAllEpics();
+
+        Subtask movedSubtask = new Subtask(subtask.getName(), subtask.getDescription(), subtask.getStartTime(),
+                subtask.getDuration(), otherEpic.getId());
+        movedSubtask.setId(subtask.getId());
+        manager.updateSubtask(movedSubtask);
+        List<Epic> epicsAfterMove = manager.getAllEpics();
+        manager.createNewSubtask(new Subtask("new", "", epic.getId()));
+
+        assertNotSame(findEpic(epics, epic.getId()), findEpic(epicsAfterMove, epic.getId()),
+                "Не скопирован прежний эпик подзадачи");
+        assertNotSame(findEpic(epics, otherEpic.getId()), findEpic(epicsAfterMove, otherEpic.getId()),
+                "Не скопирован новый эпик подзадачи");
+        assertTrue(findEpic(epicsAfterMove, epic.getId()).getSubtasksId().isEmpty());
+        assertEquals(List.of(subtask.getId()), findEpic(epicsAfterMove, otherEpic.getId()).getSubtasksId());
+        assertSame(findEpic(epicsAfterMove, otherEpic.getId()), findEpic(manager.getAllEpics(), otherEpic.getId()),
+                "Скопирован эпик, который запись не меняла");
+    }
+
+    private static Epic findEpic(List<Epic> epics, long id) {
+        return epics.stream().filter(epic -> epic.getId() == id).findFirst().orElseThrow();
+    }
+
+    @Test
+    @Override
+    void createNewEpicAndFindById() {
+        manager.createNewEpic(epic);
+
+        assertEquals(List.of(epic), manager.getAllEpics(), "Не добавился epic");
+        assertNotSame(epic, manager.getAllEpics().getFirst(), "Эпик снимка не должен быть эпиком менеджера");
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package service;
+
+import exceptions.ManagerParseTaskException;
+import model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskCsvCodecTest {
+    private final TaskCsvCodec codec = new TaskCsvCodec();
+
+    @Test
+    @DisplayName("Запятые, кавычки, переводы строк и текст null сохраняются без изменений")
+    void shouldRoundTripSpecialCharacters() {
+        Task task = new Task("a, \"b\"\nc", "null", LocalDateTime.of(2100, 1, 1, 0, 0), Duration.ofHours(1));
+        task.setId(7);
+        String row = codec.encode(task);
+        assertEquals("7,TASK,\"a, \"\"b\"\"\nc\",NEW,\"null\",4102444800,3600", row);
+
+        Task decoded = codec.decode(row);
+        assertEquals(task.getName(), decoded.getName());
+        assertEquals("null", decoded.getDescription());
+        assertEquals(task.getStartTime(), decoded.getStartTime());
+
+        Task withNulls = codec.decode("7,TASK,null,NEW,,null,null");
+        assertNull(withNulls.getName());
+        assertEquals("", withNulls.getDescription());
+    }
+
+    @Test
+    void shouldDecodeRows() {
+        RecurringTask rule = new RecurringTask("standup", "", LocalDateTime.of(2025, 3, 3, 10, 0),
+                Duration.ofMinutes(15), Duration.ofDays(1), null);
+        rule.setId(1);
+        Epic epic = new Epic("epic", "line\r\nbreak");
+        epic.setId(2);
+        Subtask subtask = new Subtask("sub,task", "", null, null, 2);
+        subtask.setId(3);
+        StringBuilder rows = new StringBuilder();
+        codec.append(rule, rows).append('\n');
+        codec.append(epic, rows).append("\r\n");
+        codec.append(subtask, rows).append('\n');
+        codec.appendDependency(new Dependency(3, 1), rows).append('\n');
+        codec.appendJournalMark(42, rows);
+
+        List<Task> tasks = new ArrayList<>();
+        List<Dependency> dependencies = new ArrayList<>();
+        char[] chars = rows.toString().toCharArray();
+        long lastSeq = codec.decodeRows(chars, 0, chars.length, new SnapshotHandler() {
+            @Override
+            public void restoreTask(Task task) {
+                tasks.add(task);
+            }
+
+            @Override
+            public void restoreDependency(long blockerId, long blockedId) {
+                dependencies.add(new Dependency(blockerId, blockedId));
+            }
+        });
+
+        assertEquals(42, lastSeq);
+        assertEquals(List.of(rule, epic, subtask), tasks);
+        assertEquals(Duration.ofDays(1), ((RecurringTask) tasks.getFirst()).getRepeatInterval());
+        assertEquals("line\r\nbreak", tasks.get(1).getDescription());
+        assertEquals("sub,task", tasks.get(2).getName());
+        assertEquals(2, ((Subtask) tasks.get(2)).getEpicId());
+        assertEquals(List.of(new Dependency(3, 1)), dependencies);
+    }
+
+    @Test
+    @DisplayName("Перевод строки внутри кавычек не заканчивает строку файла")
+    void recordEnd() {
+        byte[] rows = "1,\"a\n\"\"b\",x\n2,a\"b\n".getBytes();
+        int firstEnd = TaskCsvCodec.recordEnd(rows, 0, rows.length);
+        assertEquals(11, firstEnd);
+        // кавычка внутри поля без кавычек не открывает кавычки
+        assertEquals(rows.length - 1, TaskCsvCodec.recordEnd(rows, firstEnd + 1, rows.length));
+        assertEquals(4, TaskCsvCodec.recordEnd("1,\"a".getBytes(), 0, 4), "Незакрытые кавычки - строка оборвана");
+    }
+
+    @Test
+    void throwExceptionWhenRowIsInvalid() {
+        assertThrows(ManagerParseTaskException.class, () -> codec.decode("1,TASK,\"name,NEW,,null,null"));
+        assertThrows(ManagerParseTaskException.class, () -> codec.decode("1,TASK,\"name\"x,NEW,,null,null"));
+        assertThrows(ManagerParseTaskException.class, () -> codec.decode("1,TASK,name,NEW,,null,null,5"));
+        assertThrows(ManagerParseTaskException.class, () -> codec.decode("1,SUBTASK,name,NEW,,null,null"));
+        assertThrows(ManagerParseTaskException.class, () -> codec.decode("1,TASK,name,OPEN,,null,null"));
+        assertThrows(ManagerParseTaskException.class, () -> codec.decode("99999999999999999999,EPIC,name,NEW,"));
+        assertThrows(ManagerParseTaskException.class, () -> codec.decode("1,DEPENDENCY,2"));
+    }
+}
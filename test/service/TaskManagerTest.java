@@ -1,13 +1,21 @@
 package service;
 
+import exceptions.DependencyCycleException;
+import exceptions.ManagerCreateTaskException;
 import exceptions.TaskHasIntersectException;
 import exceptions.TaskNotFoundException;
+import gsonadapters.DurationAdapter;
+import gsonadapters.LocalDateTimeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import model.*;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Collections;
+import java.util.SortedMap;
 import java.util.SortedSet;
 
 import org.junit.jupiter.api.DisplayName;
@@ -152,7 +160,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
     @Test
     void removeTaskById() {
         manager.createNewTask(task);
-        int taskId = task.getId();
+        long taskId = task.getId();
 
         manager.getTask(taskId);
         manager.removeTask(taskId);
@@ -168,7 +176,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         subtask.setEpicId(epic.getId());
         manager.createNewSubtask(subtask);
 
-        int subtaskId = subtask.getId();
+        long subtaskId = subtask.getId();
         manager.getSubtask(subtaskId);
         manager.removeSubtask(subtaskId);
 
@@ -249,7 +257,7 @@ public abstract class TaskManagerTest<T extends TaskManager> {
     @Test
     void shouldAddTaskWithSettingIdWhenContainSameId() {
         Task taskWithGenerateId = manager.createNewTask(task);
-        int id = taskWithGenerateId.getId();
+        long id = taskWithGenerateId.getId();
         Task taskWithSetId = new Task(task.getName(), task.getDescription());
         taskWithSetId.setId(id);
         taskWithSetId = manager.createNewTask(taskWithSetId);
@@ -284,9 +292,9 @@ public abstract class TaskManagerTest<T extends TaskManager> {
     void epicStatusInProgressWhenSubtasksNewAndDone() {
         manager.createNewEpic(epic);
         subtask.setEpicId(epic.getId());
+        subtask.setStatus(TaskStatus.DONE);
         manager.createNewSubtask(subtask);
 
-        subtask.setStatus(TaskStatus.DONE);
         Subtask subtask2 = new Subtask("subtask2_name", "subtask2_description", epic.getId());
         manager.createNewSubtask(subtask2);
 
@@ -308,6 +316,70 @@ public abstract class TaskManagerTest<T extends TaskManager> {
     }
 
 
+    @Test
+    @DisplayName("Статус эпика меняется при обновлении и удалении подзадач")
+    void epicStatusFollowsSubtaskUpdates() {
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        Subtask subtask2 = manager.createNewSubtask(
+                new Subtask("subtask2_name", "subtask2_description", epic.getId()));
+
+        Subtask doneSubtask = new Subtask(subtask.getName(), "", epic.getId());
+        doneSubtask.setId(subtask.getId());
+        doneSubtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(doneSubtask);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Статус должен быть IN_PROGRESS");
+
+        manager.removeSubtask(subtask2.getId());
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус должен быть DONE");
+
+        manager.removeSubtask(doneSubtask.getId());
+        assertEquals(TaskStatus.NEW, epic.getStatus(), "Статус пустого эпика должен быть NEW");
+    }
+
+    @Test
+    @DisplayName("Перенос подзадачи в другой эпик")
+    void updateSubtaskWithOtherEpic() {
+        manager.createNewEpic(epic);
+        Epic epic2 = manager.createNewEpic(new Epic("Epic2_Name", ""));
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+
+        Subtask movedSubtask = new Subtask(subtask.getName(), "", epic2.getId());
+        movedSubtask.setId(subtask.getId());
+        movedSubtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(movedSubtask);
+
+        assertTrue(epic.getSubtasksId().isEmpty(), "Подзадача не удалилась из старого эпика");
+        assertEquals(List.of(movedSubtask), manager.getSubtasksOfEpic(epic2.getId()));
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertEquals(TaskStatus.DONE, epic2.getStatus());
+    }
+
+    @Test
+    @DisplayName("Время эпика после обновления и удаления подзадач")
+    void epicTimeFollowsSubtaskChanges() {
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        Subtask lateSubtask = manager.createNewSubtask(new Subtask("late", "",
+                subtask.getStartTime().plusDays(1), Duration.ofHours(1), epic.getId()));
+
+        Subtask updatedSubtask = new Subtask(subtask.getName(), "",
+                subtask.getStartTime().plusHours(2), Duration.ofHours(2), epic.getId());
+        updatedSubtask.setId(subtask.getId());
+        manager.updateSubtask(updatedSubtask);
+        assertEquals(updatedSubtask.getStartTime(), epic.getStartTime());
+        assertEquals(lateSubtask.getEndTime(), epic.getEndTime());
+        assertEquals(Duration.ofHours(3), epic.getDuration());
+
+        manager.removeSubtask(lateSubtask.getId());
+        assertEquals(updatedSubtask.getStartTime(), epic.getStartTime());
+        assertEquals(updatedSubtask.getEndTime(), epic.getEndTime());
+        assertEquals(Duration.ofHours(2), epic.getDuration());
+    }
+
     @Test
     void getPrioritizedTasks() {
         manager.createNewTask(task);
@@ -329,6 +401,57 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertSame(updTask, sortedSet.getFirst(), "Задача не обновилась в сортированном списке");
     }
 
+    @Test
+    @DisplayName("Задачи в заданном периоде времени")
+    void getPrioritizedTasksInPeriod() {
+        LocalDateTime startTime = LocalDateTime.of(2025,1,1,10,0);
+        Task task1 = manager.createNewTask(new Task("", "", startTime, Duration.ofHours(1)));
+        Task task2 = manager.createNewTask(new Task("", "", startTime.plusDays(1), Duration.ofHours(1)));
+        Task task3 = manager.createNewTask(new Task("", "", startTime.plusDays(1).plusHours(2), null));
+        Task task4 = manager.createNewTask(new Task("", "", startTime.plusDays(2), Duration.ofHours(1)));
+        LocalDateTime secondDay = startTime.plusDays(1).toLocalDate().atStartOfDay();
+
+        assertEquals(List.of(task2, task3),
+                List.copyOf(manager.getPrioritizedTasks(secondDay, secondDay.plusDays(1))));
+        assertEquals(List.of(task1), List.copyOf(manager.getPrioritizedTasks(null, secondDay)));
+        assertEquals(List.of(task2, task3, task4), List.copyOf(manager.getPrioritizedTasks(secondDay, null)));
+        assertEquals(List.of(task2), manager.getPrioritizedTasks(secondDay, null, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.getPrioritizedTasks(secondDay, startTime));
+    }
+
+    @Test
+    @DisplayName("Поиск свободных интервалов между задачами")
+    void getFreeTimeSlots() {
+        LocalDateTime startTime = LocalDateTime.of(2025,1,1,10,0);
+        manager.createNewTask(new Task("", "", startTime, Duration.ofHours(1)));
+        manager.createNewTask(new Task("", "", startTime.plusMinutes(90), Duration.ofHours(1)));
+        manager.createNewTask(new Task("", "", startTime.plusHours(4), Duration.ofHours(1)));
+        manager.createNewTask(new Task("", "", startTime.plusHours(6), null));
+
+        List<TimeSlot> slots = manager.getFreeTimeSlots(startTime.plusMinutes(30), Duration.ofHours(1), 3);
+
+        assertEquals(List.of(
+                new TimeSlot(startTime.plusMinutes(150), startTime.plusHours(4)),
+                new TimeSlot(startTime.plusHours(5), null)), slots,
+                "Интервал в 30 минут между задачами слишком короткий и не должен попасть в результат");
+        Task taskInFreeSlot = new Task("", "", slots.getFirst().getStart(), Duration.ofHours(1));
+        assertDoesNotThrow(() -> manager.createNewTask(taskInFreeSlot));
+    }
+
+    @Test
+    @DisplayName("Свободный интервал не начинается во время начала задачи без длительности")
+    void getFreeTimeSlotsAfterPointTask() {
+        LocalDateTime startTime = LocalDateTime.of(2025,1,1,10,0);
+        manager.createNewTask(new Task("", "", startTime, null));
+
+        List<TimeSlot> slots = manager.getFreeTimeSlots(startTime, Duration.ofHours(1), 1);
+
+        assertEquals(List.of(new TimeSlot(startTime.plusMinutes(1), null)), slots);
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.getFreeTimeSlots(startTime, Duration.ZERO, 1));
+    }
+
     @Test
     @DisplayName("Обновление задачи на null time, не добавлять в prioritizedSet")
     void shouldNotAddNullStartTimeTaskInPrioritizedSetWhenUpdateTask() {
@@ -381,4 +504,437 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(2, manager.getAllTasks().size(), "Задача не должна удалиться из менеджера");
         assertSame(task1, manager.getPrioritizedTasks().getFirst());
     }
+
+    @Test
+    @DisplayName("Пересечение с предыдущей задачей, между ними задача без длительности")
+    void shouldNoCreateTaskWhenIntersectWithEarlierTask() {
+        LocalDateTime startTime = LocalDateTime.of(2025,1,1,10,0);
+        Task longTask = new Task("", "", startTime, Duration.ofHours(4));
+        Task pointTask = new Task("", "", startTime.plusHours(1), null);
+        Task taskWithIntersect = new Task("", "", startTime.plusHours(2), Duration.ofMinutes(30));
+        manager.createNewTask(longTask);
+        manager.createNewTask(pointTask);
+
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(taskWithIntersect));
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldNoCreateTaskWhenIntersectWithLaterTask() {
+        LocalDateTime startTime = LocalDateTime.of(2025,1,1,10,0);
+        manager.createNewTask(new Task("", "", startTime, Duration.ofHours(1)));
+        manager.createNewTask(new Task("", "", startTime.plusHours(3), Duration.ofHours(1)));
+        Task taskWithIntersect = new Task("", "", startTime.plusHours(2), Duration.ofMinutes(90));
+        Task taskBetween = new Task("", "", startTime.plusHours(1), Duration.ofHours(2));
+
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(taskWithIntersect));
+        manager.createNewTask(taskBetween);
+        assertEquals(3, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    @DisplayName("Обновление задачи без времени на время, занятое другой задачей")
+    void shouldNoUpdateNullStartTimeTaskWhenHasIntersect() {
+        LocalDateTime startTime = LocalDateTime.of(2025,1,1,10,0);
+        Task nullTimeTask = manager.createNewTask(new Task("", ""));
+        manager.createNewTask(new Task("", "", startTime, Duration.ofHours(1)));
+        Task taskForUpdate = new Task("", "", startTime.plusMinutes(30), Duration.ofHours(1));
+        taskForUpdate.setId(nullTimeTask.getId());
+
+        assertThrows(TaskHasIntersectException.class, () -> manager.updateTask(taskForUpdate));
+        assertSame(nullTimeTask, manager.getTask(nullTimeTask.getId()));
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void createAll() {
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        Task nullTimeTask = new Task("", "");
+
+        List<Task> created = manager.createAll(List.of(task, subtask, nullTimeTask));
+
+        assertEquals(List.of(task, subtask, nullTimeTask), created);
+        assertSame(task, manager.getTask(task.getId()));
+        assertSame(subtask, manager.getSubtask(subtask.getId()));
+        assertSame(nullTimeTask, manager.getTask(nullTimeTask.getId()));
+        assertEquals(List.of(subtask.getId()), epic.getSubtasksId());
+        assertEquals(List.of(task, subtask), List.copyOf(manager.getPrioritizedTasks()));
+    }
+
+    @Test
+    @DisplayName("Пакет с пересекающимися между собой задачами не создаётся")
+    void shouldNoCreateAllWhenBatchHasIntersect() {
+        LocalDateTime startTime = LocalDateTime.of(2025,1,1,10,0);
+        Task first = new Task("", "", startTime, Duration.ofHours(2));
+        Task second = new Task("", "", startTime.plusHours(3), Duration.ofHours(1));
+        Task intersectFirst = new Task("", "", startTime.plusHours(1), Duration.ofMinutes(30));
+
+        assertThrows(TaskHasIntersectException.class,
+                () -> manager.createAll(List.of(second, intersectFirst, first)));
+        assertTrue(manager.getAllTasks().isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void shouldNoCreateAllWhenIntersectWithExistingTask() {
+        manager.createNewTask(task);
+        Task free = new Task("", "", task.getEndTime(), Duration.ofHours(1));
+        Task intersect = new Task("", "", task.getStartTime().plusMinutes(30), Duration.ofHours(1));
+
+        assertThrows(TaskHasIntersectException.class, () -> manager.createAll(List.of(free, intersect)));
+        assertEquals(List.of(task), manager.getAllTasks());
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldNoCreateAllWhenEpicInBatch() {
+        assertThrows(ManagerCreateTaskException.class, () -> manager.createAll(List.of(task, epic)));
+        assertTrue(manager.getAllTasks().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Задачи пакета меняются временем друг с другом")
+    void updateAllSwapTasksTime() {
+        LocalDateTime startTime = LocalDateTime.of(2025,1,1,10,0);
+        Task first = manager.createNewTask(new Task("", "", startTime, Duration.ofHours(1)));
+        Task second = manager.createNewTask(new Task("", "", startTime.plusHours(1), Duration.ofHours(1)));
+        manager.createNewEpic(epic);
+        Task updatedFirst = new Task("First", "", second.getStartTime(), second.getDuration());
+        updatedFirst.setId(first.getId());
+        Task updatedSecond = new Task("Second", "", first.getStartTime(), first.getDuration());
+        updatedSecond.setId(second.getId());
+        Epic updatedEpic = new Epic("Updated", "Updated");
+        updatedEpic.setId(epic.getId());
+
+        manager.updateAll(List.of(updatedFirst, updatedSecond, updatedEpic));
+
+        assertSame(updatedFirst, manager.getTask(first.getId()));
+        assertSame(updatedSecond, manager.getTask(second.getId()));
+        assertEquals("Updated", manager.getEpic(epic.getId()).getName());
+        assertEquals(List.of(updatedSecond, updatedFirst), List.copyOf(manager.getPrioritizedTasks()));
+    }
+
+    @Test
+    @DisplayName("Эпик в пакете обновления не меняет список по приоритету")
+    void updateAllWithEpicKeepsPrioritizedTasks() {
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        List<Task> prioritized = List.copyOf(manager.getPrioritizedTasks());
+        Epic updatedEpic = new Epic("Updated", "Updated");
+        updatedEpic.setId(epic.getId());
+
+        manager.updateAll(List.of(updatedEpic));
+        assertEquals(prioritized, List.copyOf(manager.getPrioritizedTasks()));
+
+        // эпик из менеджера со временем начала по подзадаче
+        Epic timedEpic = manager.getEpic(epic.getId());
+        assertNotNull(timedEpic.getStartTime());
+        manager.updateAll(List.of(timedEpic));
+        assertEquals(prioritized, List.copyOf(manager.getPrioritizedTasks()));
+        assertEquals("Updated", manager.getEpic(epic.getId()).getName());
+        assertThrows(TaskHasIntersectException.class,
+                () -> manager.createNewTask(new Task("", "", subtask.getStartTime(), Duration.ofMinutes(10))));
+    }
+
+    @Test
+    void shouldNoUpdateAllWhenBatchHasIntersect() {
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        Task updatedTask = new Task("", "", subtask.getStartTime(), Duration.ofHours(1));
+        updatedTask.setId(task.getId());
+        Subtask updatedSubtask = new Subtask("", "", subtask.getStartTime().plusMinutes(30), Duration.ofHours(1));
+        updatedSubtask.setId(subtask.getId());
+        updatedSubtask.setEpicId(epic.getId());
+
+        assertThrows(TaskHasIntersectException.class,
+                () -> manager.updateAll(List.of(updatedTask, updatedSubtask)));
+        assertSame(task, manager.getTask(task.getId()));
+        assertSame(subtask, manager.getSubtask(subtask.getId()));
+        assertEquals(List.of(task, subtask), List.copyOf(manager.getPrioritizedTasks()));
+    }
+
+    @Test
+    @DisplayName("Правило с нулевым интервалом из JSON не обновляет пакет и не меняет список по приоритету")
+    void shouldNoUpdateAllWhenRuleIsInvalid() {
+        manager.createNewTask(task);
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapter(Duration.class, new DurationAdapter())
+                .create();
+        RecurringTask rule = gson.fromJson("{\"id\": " + task.getId() + ", \"name\": \"rule\", \"description\": \"\", "
+                + "\"startTime\": \"2025-02-10T10:00\", \"duration\": \"PT1H\", \"repeatInterval\": \"PT0.5S\"}",
+                RecurringTask.class);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.updateAll(List.of(rule)));
+        assertSame(task, manager.getTask(task.getId()));
+        assertEquals(List.of(task), List.copyOf(manager.getPrioritizedTasks()));
+    }
+
+    @Test
+    void shouldNoUpdateAllWhenTaskNotFound() {
+        manager.createNewTask(task);
+        Task updatedTask = new Task("Updated", "");
+        updatedTask.setId(task.getId());
+        Task notFound = new Task("", "");
+        notFound.setId(task.getId() + 100);
+
+        assertThrows(TaskNotFoundException.class, () -> manager.updateAll(List.of(updatedTask, notFound)));
+        assertSame(task, manager.getTask(task.getId()));
+    }
+
+    @Test
+    void getTasksByStatus() {
+        manager.createNewTask(task);
+        Task nullTimeTask = manager.createNewTask(new Task("", ""));
+        Task updatedTask = new Task("", "");
+        updatedTask.setId(nullTimeTask.getId());
+        updatedTask.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(updatedTask);
+
+        assertEquals(List.of(task), manager.getTasksByStatus(TaskStatus.NEW));
+        assertEquals(List.of(updatedTask), manager.getTasksByStatus(TaskStatus.IN_PROGRESS));
+        assertTrue(manager.getTasksByStatus(TaskStatus.DONE).isEmpty());
+
+        task.setStatus(TaskStatus.DONE);
+        manager.updateTask(task);
+        manager.removeTask(updatedTask.getId());
+        assertTrue(manager.getTasksByStatus(TaskStatus.NEW).isEmpty());
+        assertTrue(manager.getTasksByStatus(TaskStatus.IN_PROGRESS).isEmpty());
+        assertEquals(List.of(task), manager.getTasksByStatus(TaskStatus.DONE));
+
+        manager.clearAllTasks();
+        assertTrue(manager.getTasksByStatus(TaskStatus.DONE).isEmpty());
+    }
+
+    @Test
+    void getSubtasksByStatus() {
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        Subtask doneSubtask = new Subtask("", "", null, null, epic.getId());
+        doneSubtask.setStatus(TaskStatus.DONE);
+        manager.createNewSubtask(doneSubtask);
+
+        assertEquals(List.of(subtask), manager.getSubtasksByStatus(TaskStatus.NEW));
+        assertEquals(List.of(doneSubtask), manager.getSubtasksByStatus(TaskStatus.DONE));
+
+        Subtask updatedSubtask = new Subtask("", "", null, null, epic.getId());
+        updatedSubtask.setId(subtask.getId());
+        updatedSubtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(updatedSubtask);
+        assertTrue(manager.getSubtasksByStatus(TaskStatus.NEW).isEmpty());
+        assertEquals(2, manager.getSubtasksByStatus(TaskStatus.DONE).size());
+
+        manager.removeSubtask(doneSubtask.getId());
+        assertEquals(List.of(updatedSubtask), manager.getSubtasksByStatus(TaskStatus.DONE));
+
+        manager.removeEpic(epic.getId());
+        assertTrue(manager.getSubtasksByStatus(TaskStatus.DONE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Очистка подзадач не добавляет эпики в историю и не меняет её порядок")
+    void clearAllSubtasksKeepsHistoryOrder() {
+        manager.createNewEpic(epic);
+        manager.createNewTask(task);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        manager.getTask(task.getId());
+        manager.getSubtask(subtask.getId());
+        manager.clearAllSubtasks();
+
+        assertEquals(List.of(task), manager.getHistory());
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertEquals(List.of(task), List.copyOf(manager.getPrioritizedTasks()));
+    }
+
+    @Test
+    @DisplayName("Календарь по дням, задача через полночь попадает в оба дня")
+    void getCalendar() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        Task nightTask = manager.createNewTask(new Task("", "", day.atTime(23, 0), Duration.ofHours(2)));
+        Task toMidnightTask = manager.createNewTask(new Task("", "", day.atTime(20, 0), Duration.ofHours(3)));
+        Task pointTask = manager.createNewTask(new Task("", "", day.plusDays(3).atTime(10, 0), null));
+        manager.createNewTask(new Task("", ""));
+
+        SortedMap<LocalDate, List<Task>> calendar = manager.getCalendar(day, day.plusDays(6));
+        assertEquals(List.of(day, day.plusDays(1), day.plusDays(3)), List.copyOf(calendar.keySet()));
+        assertEquals(List.of(toMidnightTask, nightTask), calendar.get(day));
+        assertEquals(List.of(nightTask), calendar.get(day.plusDays(1)));
+        assertEquals(List.of(pointTask), calendar.get(day.plusDays(3)));
+        assertEquals(List.of(day.plusDays(1)), List.copyOf(manager.getCalendar(day.plusDays(1), day.plusDays(2)).keySet()));
+        assertThrows(IllegalArgumentException.class, () -> manager.getCalendar(day.plusDays(1), day));
+    }
+
+    @Test
+    void calendarFollowsTaskChanges() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        Task updatedTask = new Task("", "", day.plusDays(5).atTime(23, 30), Duration.ofHours(1));
+        updatedTask.setId(task.getId());
+        manager.updateTask(updatedTask);
+
+        SortedMap<LocalDate, List<Task>> calendar = manager.getCalendar(day, day.plusDays(10));
+        assertEquals(List.of(day.plusDays(1), day.plusDays(5), day.plusDays(6)), List.copyOf(calendar.keySet()));
+
+        manager.clearAllSubtasks();
+        manager.removeTask(updatedTask.getId());
+        assertTrue(manager.getCalendar(day, day.plusDays(10)).isEmpty());
+    }
+
+    @Test
+    void addDependency() {
+        manager.createNewTask(task);
+        manager.createNewEpic(epic);
+        subtask.setEpicId(epic.getId());
+        manager.createNewSubtask(subtask);
+        Task blocked = manager.createNewTask(new Task("", ""));
+        manager.addDependency(blocked.getId(), task.getId());
+        manager.addDependency(subtask.getId(), blocked.getId());
+
+        assertEquals(List.of(blocked), manager.getBlockers(task.getId()));
+        assertEquals(List.of(subtask, blocked, task), manager.getTopologicalOrder());
+        assertEquals(List.of(new Dependency(subtask.getId(), blocked.getId()),
+                new Dependency(blocked.getId(), task.getId())), manager.getDependencies());
+        assertThrows(DependencyCycleException.class, () -> manager.addDependency(task.getId(), subtask.getId()));
+        assertThrows(ManagerCreateTaskException.class, () -> manager.addDependency(epic.getId(), task.getId()));
+        assertThrows(TaskNotFoundException.class, () -> manager.addDependency(task.getId(), 1000));
+        assertTrue(manager.getHistory().isEmpty(), "Зависимости не должны менять историю");
+    }
+
+    @Test
+    void removeDependencyAndLinkedTask() {
+        Task first = manager.createNewTask(new Task("", ""));
+        Task second = manager.createNewTask(new Task("", ""));
+        Task third = manager.createNewTask(new Task("", ""));
+        manager.addDependency(first.getId(), second.getId());
+        manager.addDependency(second.getId(), third.getId());
+
+        manager.removeDependency(first.getId(), second.getId());
+        assertThrows(TaskNotFoundException.class, () -> manager.removeDependency(first.getId(), second.getId()));
+        assertEquals(List.of(second, third), manager.getTopologicalOrder());
+
+        manager.removeTask(second.getId());
+        assertTrue(manager.getDependencies().isEmpty());
+        manager.addDependency(third.getId(), first.getId());
+        manager.clearAllTasks();
+        assertTrue(manager.getTopologicalOrder().isEmpty());
+    }
+
+    @Test
+    void getCriticalPath() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task first = manager.createNewTask(new Task("", "", startTime, Duration.ofHours(1)));
+        Task second = manager.createNewTask(new Task("", "", startTime.plusHours(1), Duration.ofHours(3)));
+        Task last = manager.createNewTask(new Task("", "", null, Duration.ofHours(1)));
+        Task shortTask = manager.createNewTask(new Task("", "", null, Duration.ofMinutes(10)));
+        manager.addDependency(first.getId(), second.getId());
+        manager.addDependency(second.getId(), last.getId());
+        manager.addDependency(shortTask.getId(), last.getId());
+
+        CriticalPath criticalPath = manager.getCriticalPath();
+        assertEquals(List.of(first, second, last), criticalPath.getTasks());
+        assertEquals(startTime, criticalPath.getStart());
+        assertEquals(startTime.plusHours(5), criticalPath.getEnd());
+        assertEquals(Duration.ofHours(5), criticalPath.getDuration());
+    }
+
+    @Test
+    void recurringTaskIntersect() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+        RecurringTask standup = new RecurringTask("standup", "", startTime, Duration.ofMinutes(15),
+                Duration.ofDays(1), startTime.plusDays(30));
+        manager.createNewTask(standup);
+
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(
+                new Task("", "", startTime.plusDays(5).plusMinutes(5), Duration.ofHours(1))));
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(
+                new Task("", "", startTime.plusDays(3), null)));
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(
+                new Task("", "", startTime.plusDays(7).minusHours(1), Duration.ofHours(2))));
+        manager.createNewTask(new Task("", "", startTime.plusDays(5).plusMinutes(15), Duration.ofHours(1)));
+        manager.createNewTask(new Task("", "", startTime.plusDays(31), Duration.ofHours(1)));
+        manager.createNewTask(new Task("", "", startTime.minusDays(1), Duration.ofHours(1)));
+
+        // еженедельное правило с тем же временем попадает на повторение ежедневного
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(new RecurringTask("review", "",
+                startTime.plusDays(2).minusMinutes(30), Duration.ofHours(1), Duration.ofDays(7))));
+        // новое правило попадает на разовую задачу
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(new RecurringTask("review", "",
+                startTime.minusDays(1).plusMinutes(30), Duration.ofHours(1), Duration.ofDays(7))));
+        manager.createNewTask(new RecurringTask("review", "", startTime.plusHours(2), Duration.ofHours(1),
+                Duration.ofDays(7)));
+        assertEquals(5, manager.getAllTasks().size());
+        assertThrows(IllegalArgumentException.class, () -> new RecurringTask("", "", startTime,
+                Duration.ofHours(2), Duration.ofHours(1)));
+    }
+
+    @Test
+    void unboundedRecurringTasksIntersect() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+        manager.createNewTask(new RecurringTask("standup", "", startTime, Duration.ofMinutes(15), Duration.ofDays(1)));
+
+        // через 100 дней еженедельное правило в 10:10 пересечётся с ежедневным
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(new RecurringTask("review", "",
+                startTime.plusDays(100).plusMinutes(10), Duration.ofHours(1), Duration.ofDays(7))));
+        assertThrows(TaskHasIntersectException.class, () -> manager.createNewTask(
+                new Task("", "", startTime.plusYears(10), Duration.ofMinutes(1))));
+        manager.createNewTask(new RecurringTask("review", "", startTime.plusDays(100).plusMinutes(15),
+                Duration.ofHours(1), Duration.ofDays(7)));
+        assertEquals(2, manager.getAllTasks().size());
+    }
+
+    @Test
+    void getPrioritizedTasksWithRecurringTask() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+        RecurringTask standup = new RecurringTask("standup", "", startTime, Duration.ofMinutes(15), Duration.ofDays(1));
+        manager.createNewTask(standup);
+        Task oneOff = manager.createNewTask(new Task("", "", startTime.plusDays(1).plusHours(2), Duration.ofHours(1)));
+
+        assertEquals(List.of(standup, oneOff), List.copyOf(manager.getPrioritizedTasks()),
+                "Правило должно храниться в списке одной записью");
+        List<Task> tasksOfPeriod = List.copyOf(manager.getPrioritizedTasks(startTime.plusHours(1), startTime.plusDays(3)));
+        assertEquals(List.of(startTime.plusDays(1), startTime.plusDays(1).plusHours(2), startTime.plusDays(2)),
+                tasksOfPeriod.stream().map(Task::getStartTime).toList());
+        assertEquals(standup.getId(), tasksOfPeriod.getFirst().getId());
+
+        List<Task> firstTasks = manager.getPrioritizedTasks(startTime.plusYears(1), null, 3);
+        assertEquals(List.of(startTime.plusDays(365), startTime.plusDays(366), startTime.plusDays(367)),
+                firstTasks.stream().map(Task::getStartTime).toList());
+        assertThrows(IllegalArgumentException.class, () -> manager.getPrioritizedTasks(startTime, null));
+    }
+
+    @Test
+    void getCalendarWithRecurringTask() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 23, 30);
+        manager.createNewTask(new RecurringTask("night", "", startTime, Duration.ofHours(1), Duration.ofDays(2),
+                startTime.plusDays(4)));
+        LocalDate day = startTime.toLocalDate();
+
+        SortedMap<LocalDate, List<Task>> calendar = manager.getCalendar(day.plusDays(1), day.plusDays(10));
+        assertEquals(List.of(day.plusDays(1), day.plusDays(2), day.plusDays(3), day.plusDays(4), day.plusDays(5)),
+                List.copyOf(calendar.keySet()));
+        assertEquals(startTime, calendar.get(day.plusDays(1)).getFirst().getStartTime());
+        assertEquals(startTime.plusDays(2), calendar.get(day.plusDays(2)).getFirst().getStartTime());
+    }
+
+    @Test
+    void getFreeTimeSlotsWithRecurringTask() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 3, 10, 0);
+        manager.createNewTask(new RecurringTask("", "", startTime, Duration.ofMinutes(30), Duration.ofHours(1)));
+
+        List<TimeSlot> slots = manager.getFreeTimeSlots(startTime.plusMinutes(10), Duration.ofMinutes(20), 2);
+        assertEquals(List.of(new TimeSlot(startTime.plusMinutes(30), startTime.plusMinutes(60)),
+                new TimeSlot(startTime.plusMinutes(90), startTime.plusMinutes(120))), slots);
+        // после начала правила часовой интервал не найти
+        slots = manager.getFreeTimeSlots(startTime.minusHours(2), Duration.ofHours(1), 3);
+        assertEquals(List.of(new TimeSlot(startTime.minusHours(2), startTime)), slots);
+    }
 }